@@ -0,0 +1,129 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.config.CacheConfig;
+import com.example.onlinelibrary.config.props.BookCacheProperties;
+import com.example.onlinelibrary.config.props.RecommendationProperties;
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.UserRepository;
+import com.example.onlinelibrary.service.BookService;
+import com.example.onlinelibrary.service.PurchaseService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.example.onlinelibrary.service.impl.BookServiceImpl;
+import com.example.onlinelibrary.service.impl.PurchaseServiceImpl;
+import com.example.onlinelibrary.service.impl.UserSummaryServiceImpl;
+import com.example.onlinelibrary.service.index.BookAutocompleteIndex;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.service.index.BookSearchIndex;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks buying a cart of books on an in-memory H2 database, through the service layer book cache.
+ * {@code checkout} buys the cart at once; {@code buyEach} buys its books one at a time as the single purchase
+ * endpoint does, with a book lookup, an insert and a purchase count update per book, each in its own transaction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    private static final int USERS = 100;
+    private static final int BOOKS = 10_000;
+
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    private Path snapshotDirectory;
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+    private BookService bookService;
+    private List<User> users;
+    private int nextUser;
+    private long nextBook;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshotDirectory = Files.createTempDirectory("checkout-benchmark");
+        context = EmbeddedDatabase.start("checkout-" + cartSize,
+                Map.of("book-cache.mode", "service",
+                        "recommendation.co-purchase.snapshot-file", snapshotDirectory.resolve("co-purchase.bin").toString()),
+                BookCacheProperties.class, RecommendationProperties.class, CacheConfig.class, BookCache.class,
+                GenreRecommendationIndex.class, CoPurchaseIndex.class, BookOwnershipIndex.class,
+                BookSearchIndex.class, BookAutocompleteIndex.class, BookServiceImpl.class, PurchaseServiceImpl.class,
+                UserSummaryServiceImpl.class);
+
+        SyntheticData data = new SyntheticData(42);
+        data.populate(context.getBean(JdbcTemplate.class), USERS, data.books(BOOKS), List.of());
+        users = context.getBean(UserRepository.class).findAll();
+        purchaseService = context.getBean(PurchaseService.class);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(snapshotDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(snapshotDirectory);
+    }
+
+    @Benchmark
+    public List<Purchase> checkout() {
+        return purchaseService.checkout(nextUser(), nextCart());
+    }
+
+    @Benchmark
+    public List<Purchase> buyEach() {
+        User user = nextUser();
+        List<Purchase> purchases = new ArrayList<>(cartSize);
+        for (Long bookId : nextCart()) {
+            purchases.add(purchaseService.createPurchase(user, bookService.getBookById(bookId)));
+        }
+        return purchases;
+    }
+
+    private User nextUser() {
+        nextUser = (nextUser + 1) % users.size();
+        return users.get(nextUser);
+    }
+
+    private List<Long> nextCart() {
+        List<Long> cart = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            nextBook = nextBook % BOOKS + 1;
+            cart.add(nextBook);
+        }
+        return cart;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.example.onlinelibrary.benchmark;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts Spring contexts holding the JPA repositories on a private in-memory H2 database, plus the given components.
+ * The application configuration files are not read, and the context is refreshed without the application's
+ * startup events, so the in-memory indexes stay empty until a benchmark fills them from {@link SyntheticData}.
+ */
+final class EmbeddedDatabase {
+
+    @Configuration
+    @ImportAutoConfiguration({ConfigurationPropertiesAutoConfiguration.class, DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class})
+    @EntityScan("com.example.onlinelibrary.domain")
+    @EnableJpaRepositories("com.example.onlinelibrary.repository")
+    static class JpaConfig {
+    }
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Starts a context on a new database whose schema is generated from the entities.
+     *
+     * @param name       The name of the database, unique per benchmark.
+     * @param properties Additional configuration properties.
+     * @param components The components to register besides the repositories.
+     * @return The refreshed context; closing it drops the database.
+     */
+    static AnnotationConfigApplicationContext start(String name, Map<String, Object> properties,
+                                                    Class<?>... components) {
+        LoggingSystem loggingSystem = LoggingSystem.get(EmbeddedDatabase.class.getClassLoader());
+        loggingSystem.beforeInitialize();
+        loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("spring.datasource.url", "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        settings.put("spring.datasource.username", "sa");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        settings.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        settings.putAll(properties);
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", settings));
+        context.register(JpaConfig.class);
+        if (components.length > 0) {
+            context.register(components);
+        }
+        context.refresh();
+        return context;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.domain.enums.AuthorityName;
+import com.example.onlinelibrary.domain.user.Authority;
+import com.example.onlinelibrary.web.security.AuthenticationMetrics;
+import com.example.onlinelibrary.web.security.JwtPrincipalCache;
+import com.example.onlinelibrary.web.security.JwtTokenProvider;
+import com.example.onlinelibrary.web.security.JwtUserDetails;
+import com.example.onlinelibrary.web.security.RefreshTokenStore;
+import com.example.onlinelibrary.web.security.TokenRevocationList;
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the JWT work done per request by the token filter, and the token refresh.
+ * {@code perRequestLegacy} reproduces the former filter path, where validating the token and reading
+ * its ID and username each built a new parser and verified the signature again.
+ * {@code revocationCheck} checks users among {@value #REVOKED_USERS} revoked ones, half of them revoked.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "aGZiYmtiYWllYmNpZWFpZWJsZWNldWNlY2xhZWNhaWJlbGNhZWN3Q0VCV0VXSUM=";
+
+    private static final int REVOKED_USERS = 10_000;
+
+    private JwtTokenProvider tokenProvider;
+    private TokenRevocationList revocationList;
+    private RefreshTokenStore refreshTokenStore;
+    private Path tokenFile;
+    private String refreshToken;
+    private long nextUser;
+    private Key key;
+    private Set<Authority> roles;
+    private String accessToken;
+
+    @Setup
+    public void setUp() throws IOException {
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(SECRET);
+        jwtProperties.setAccess(3_600_000L);
+        jwtProperties.setRefresh(2_592_000_000L);
+        jwtProperties.setPrincipalCacheSize(1_000L);
+        jwtProperties.setPrincipalCacheTtl(300_000L);
+        tokenFile = Files.createTempFile("refresh-tokens", ".log");
+        jwtProperties.setRefreshTokenFile(tokenFile.toString());
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtPrincipalCache principalCache = new JwtPrincipalCache(jwtProperties, meterRegistry);
+        revocationList = new TokenRevocationList(jwtProperties);
+        refreshTokenStore = new RefreshTokenStore(jwtProperties, revocationList);
+        refreshTokenStore.open();
+        tokenProvider = new JwtTokenProvider(jwtProperties, null, principalCache,
+                new AuthenticationMetrics(meterRegistry), refreshTokenStore, revocationList);
+        tokenProvider.init();
+        principalCache.get(1L, id -> new JwtUserDetails(id, "johndoe@gmail.com", "John Doe", "",
+                List.of(new SimpleGrantedAuthority(AuthorityName.ROLE_USER.name()))));
+        long now = System.currentTimeMillis();
+        for (long user = 0; user < REVOKED_USERS; user += 2) {
+            revocationList.revoke(user, now);
+        }
+
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        roles = Set.of(new Authority(1L, AuthorityName.ROLE_USER));
+        accessToken = tokenProvider.createAccessToken(1L, "johndoe@gmail.com", roles);
+        refreshToken = tokenProvider.createRefreshToken(1L, "johndoe@gmail.com");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        refreshTokenStore.close();
+        Files.deleteIfExists(tokenFile);
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return tokenProvider.createAccessToken(1L, "johndoe@gmail.com", roles);
+    }
+
+    @Benchmark
+    public Claims perRequest() {
+        return tokenProvider.parseToken(accessToken);
+    }
+
+    @Benchmark
+    public void perRequestLegacy(Blackhole blackhole) {
+        for (int parse = 0; parse < 3; parse++) {
+            blackhole.consume(Jwts.parserBuilder()
+                    .setSigningKey(key)
+                    .build()
+                    .parseClaimsJws(accessToken)
+                    .getBody());
+        }
+    }
+
+    @Benchmark
+    public boolean revocationCheck() {
+        return revocationList.isRevoked(nextUser++ % REVOKED_USERS, 0);
+    }
+
+    @Benchmark
+    public String refresh() {
+        refreshToken = tokenProvider.refreshUserTokens(refreshToken).getRefreshToken();
+        return refreshToken;
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.config.CacheConfig;
+import com.example.onlinelibrary.config.props.BookCacheProperties;
+import com.example.onlinelibrary.config.props.RecommendationProperties;
+import com.example.onlinelibrary.domain.user.UserSummary;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.BookView;
+import com.example.onlinelibrary.service.BookService;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.example.onlinelibrary.service.impl.BookServiceImpl;
+import com.example.onlinelibrary.service.impl.UserSummaryServiceImpl;
+import com.example.onlinelibrary.service.index.BookAutocompleteIndex;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.service.index.BookSearchIndex;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.purchase.PurchaseDto;
+import com.example.onlinelibrary.web.mappers.BookMapper;
+import com.example.onlinelibrary.web.mappers.BookMapperImpl;
+import com.example.onlinelibrary.web.mappers.PurchaseMapper;
+import com.example.onlinelibrary.web.mappers.PurchaseMapperImpl;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the library dashboard on an in-memory H2 database, for users owning a small and a large library.
+ * {@code libraryAndPurchases} reproduces the former dashboard, which listed the whole library and every purchase
+ * of the user; {@code summary} reads the precomputed summary row and {@code libraryPage} the first library page,
+ * whose books come from the service layer book cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibraryBenchmark {
+
+    private static final int USERS = 20;
+    private static final int BOOKS = 10_000;
+    private static final int PURCHASES_PER_USER = 50;
+    private static final int PAGE_SIZE = 20;
+    private static final String LIBRARY = "SELECT " + BookRepository.BOOK_VIEW_COLUMNS
+            + " FROM Book b JOIN b.users u WHERE u.id = :userId ORDER BY b.id ASC";
+
+    @Param({"100", "10000"})
+    private int libraryBooks;
+
+    private Path snapshotDirectory;
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+    private UserSummaryService userSummaryService;
+    private BookService bookService;
+    private PurchaseRepository purchaseRepository;
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final PurchaseMapper purchaseMapper = new PurchaseMapperImpl();
+    private long nextUser;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshotDirectory = Files.createTempDirectory("library-benchmark");
+        context = EmbeddedDatabase.start("library-" + libraryBooks,
+                Map.of("book-cache.mode", "service",
+                        "recommendation.co-purchase.snapshot-file", snapshotDirectory.resolve("co-purchase.bin").toString()),
+                BookCacheProperties.class, RecommendationProperties.class, CacheConfig.class, BookCache.class,
+                GenreRecommendationIndex.class, CoPurchaseIndex.class, BookOwnershipIndex.class,
+                BookSearchIndex.class, BookAutocompleteIndex.class, UserSummaryServiceImpl.class, BookServiceImpl.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        entityManager = context.getBean(EntityManager.class);
+        userSummaryService = context.getBean(UserSummaryService.class);
+        bookService = context.getBean(BookService.class);
+        purchaseRepository = context.getBean(PurchaseRepository.class);
+
+        SyntheticData data = new SyntheticData(42);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        data.populate(jdbcTemplate, USERS, data.books(BOOKS), data.purchases(USERS, BOOKS, PURCHASES_PER_USER));
+        List<Object[]> links = new ArrayList<>(USERS * libraryBooks);
+        for (long user = 1; user <= USERS; user++) {
+            for (long book = 1; book <= libraryBooks; book++) {
+                links.add(new Object[]{user, book});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_books (user_id, book_id) VALUES (?, ?)", links);
+        for (long user = 1; user <= USERS; user++) {
+            userSummaryService.ensureSummary(user);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(snapshotDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(snapshotDirectory);
+    }
+
+    @Benchmark
+    public UserSummary summary() {
+        return userSummaryService.getSummary(nextUser());
+    }
+
+    @Benchmark
+    public List<BookDto> libraryPage() {
+        return bookMapper.toDto(bookService.getBooksPageByUserId(nextUser(), 0L, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public void libraryAndPurchases(Blackhole blackhole) {
+        long userId = nextUser();
+        readOnly.executeWithoutResult(status -> {
+            List<BookDto> books = bookMapper.toViewDto(entityManager.createQuery(LIBRARY, BookView.class)
+                    .setParameter("userId", userId)
+                    .getResultList());
+            List<PurchaseDto> purchases = purchaseMapper.toViewDto(purchaseRepository.findViewsByUserId(userId));
+            blackhole.consume(books);
+            blackhole.consume(purchases);
+        });
+    }
+
+    private long nextUser() {
+        nextUser = nextUser % USERS + 1;
+        return nextUser;
+    }
+
+}
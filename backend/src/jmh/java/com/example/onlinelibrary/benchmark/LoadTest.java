@@ -0,0 +1,148 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of a running application: each connection sends its next request as soon as the
+ * previous one completes, so the measured throughput is what the server sustains at that concurrency.
+ * Run it once against the application started with {@code spring.threads.virtual.enabled=false} as the
+ * platform thread baseline, then with {@code true}, at the same number of connections.
+ * <p>
+ * Arguments are {@code key=value} pairs, all optional: {@code url}, {@code path}, {@code username},
+ * {@code password}, {@code connections}, {@code rampUp} and {@code duration}, both in seconds.
+ * Connections are opened over the ramp-up, which is not measured.
+ */
+public final class LoadTest {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final long[] latencies;
+    private final AtomicLong recorded = new AtomicLong();
+
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    private LoadTest(int maxSamples) {
+        this.latencies = new long[maxSamples];
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "url", "http://localhost:8181",
+                "path", "/api/v1/purchases/user",
+                "username", "admin@gmail.com",
+                "password", "ADMIN",
+                "connections", "10000",
+                "rampUp", "10",
+                "duration", "30"));
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            options.put(option[0], option[1]);
+        }
+        int connections = Integer.parseInt(options.get("connections"));
+        int rampUp = Integer.parseInt(options.get("rampUp"));
+        int duration = Integer.parseInt(options.get("duration"));
+
+        LoadTest loadTest = new LoadTest(5_000_000);
+        String token = loadTest.login(options.get("url"), options.get("username"), options.get("password"));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.get("url") + options.get("path")))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        CountDownLatch finished = new CountDownLatch(connections);
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(rampUp);
+        long start = System.nanoTime();
+        for (int connection = 0; connection < connections; connection++) {
+            long due = start + rampUpNanos * connection / connections;
+            while (System.nanoTime() < due) {
+                Thread.sleep(1);
+            }
+            loadTest.send(request, finished);
+        }
+        Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(start + rampUpNanos - System.nanoTime())));
+
+        loadTest.measuring = true;
+        long measureStart = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+        loadTest.measuring = false;
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+        loadTest.stopped = true;
+        finished.await(60, TimeUnit.SECONDS);
+
+        loadTest.report(connections, seconds);
+    }
+
+    private String login(String url, String username, String password) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                        Map.of("username", username, "password", password))))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    /**
+     * Sends the request, and the next one on completion until the test is stopped.
+     */
+    private void send(HttpRequest request, CountDownLatch finished) {
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (measuring) {
+                if (failure == null && response.statusCode() == 200) {
+                    succeeded.incrementAndGet();
+                    long sample = recorded.getAndIncrement();
+                    if (sample < latencies.length) {
+                        latencies[(int) sample] = System.nanoTime() - sent;
+                    }
+                } else {
+                    failed.incrementAndGet();
+                }
+            }
+            if (stopped) {
+                finished.countDown();
+            } else {
+                send(request, finished);
+            }
+        });
+    }
+
+    private void report(int connections, double seconds) {
+        long[] samples = Arrays.copyOf(latencies, (int) Math.min(recorded.get(), latencies.length));
+        Arrays.sort(samples);
+        System.out.printf("connections=%d duration=%.1fs succeeded=%d failed=%d throughput=%.0f req/s "
+                        + "p50=%.1fms p99=%.1fms max=%.1fms%n",
+                connections, seconds, succeeded.get(), failed.get(), succeeded.get() / seconds,
+                percentile(samples, 0.50), percentile(samples, 0.99), percentile(samples, 1.0));
+    }
+
+    private static double percentile(long[] sortedSamples, double quantile) {
+        if (sortedSamples.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedSamples.length - 1, Math.ceil(quantile * sortedSamples.length) - 1);
+        return sortedSamples[Math.max(0, index)] / 1e6;
+    }
+
+}
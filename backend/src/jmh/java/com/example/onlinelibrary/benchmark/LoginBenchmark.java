@@ -0,0 +1,165 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.service.AuthService;
+import com.example.onlinelibrary.service.UserService;
+import com.example.onlinelibrary.service.impl.AuthServiceImpl;
+import com.example.onlinelibrary.service.impl.UserServiceImpl;
+import com.example.onlinelibrary.service.impl.UserSummaryServiceImpl;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.web.dto.auth.JwtRequestDto;
+import com.example.onlinelibrary.web.dto.auth.JwtResponseDto;
+import com.example.onlinelibrary.web.security.AuthenticationMetrics;
+import com.example.onlinelibrary.web.security.JwtPrincipalCache;
+import com.example.onlinelibrary.web.security.JwtTokenProvider;
+import com.example.onlinelibrary.web.security.JwtUserDetailsService;
+import com.example.onlinelibrary.web.security.PasswordVerifier;
+import com.example.onlinelibrary.web.security.RefreshTokenStore;
+import com.example.onlinelibrary.web.security.TokenRevocationList;
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import com.example.onlinelibrary.web.security.props.PasswordProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
+import org.springframework.security.authentication.DefaultAuthenticationEventPublisher;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks successful logins with all available processors logging in concurrently, so the score divided by
+ * the number of processors is the number of logins per second per core.
+ * {@code loginLegacy} reproduces the former login, where the authentication manager verified the password on the
+ * calling thread and the user was loaded a second time for the tokens. Both paths hash at the same cost factor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final String PASSWORD = "password";
+
+    @Configuration
+    static class SecurityConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PasswordEncoder passwordEncoder(Environment environment) {
+            return new BCryptPasswordEncoder(environment.getRequiredProperty("security.password.strength", Integer.class));
+        }
+
+        @Bean
+        AuthenticationEventPublisher authenticationEventPublisher() {
+            return new DefaultAuthenticationEventPublisher();
+        }
+
+    }
+
+    @Param({"10"})
+    public int strength;
+
+    private Path tokenFile;
+    private AnnotationConfigApplicationContext context;
+    private AuthService authService;
+    private ProviderManager authenticationManager;
+    private UserService userService;
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tokenFile = Files.createTempFile("refresh-tokens", ".log");
+        context = EmbeddedDatabase.start("login", Map.of(
+                        "security.password.strength", strength,
+                        "security.jwt.secret", "aGZiYmtiYWllYmNpZWFpZWJsZWNldWNlY2xhZWNhaWJlbGNhZWN3Q0VCV0VXSUM=",
+                        "security.jwt.access", 3_600_000L,
+                        "security.jwt.refresh", 2_592_000_000L,
+                        "security.jwt.refresh-token-file", tokenFile.toString()),
+                SecurityConfig.class, JwtProperties.class, PasswordProperties.class, AuthenticationMetrics.class,
+                JwtPrincipalCache.class, TokenRevocationList.class, RefreshTokenStore.class, BookOwnershipIndex.class, UserSummaryServiceImpl.class, UserServiceImpl.class, JwtTokenProvider.class,
+                JwtUserDetailsService.class, PasswordVerifier.class, AuthServiceImpl.class);
+        authService = context.getBean(AuthService.class);
+        userService = context.getBean(UserService.class);
+        jwtTokenProvider = context.getBean(JwtTokenProvider.class);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(context.getBean(JwtUserDetailsService.class));
+        provider.setPasswordEncoder(context.getBean(PasswordEncoder.class));
+        authenticationManager = new ProviderManager(provider);
+
+        SyntheticData data = new SyntheticData(42);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        data.populate(jdbcTemplate, USERS, List.of(), List.of());
+        jdbcTemplate.update("UPDATE users SET password_hash = ?", context.getBean(PasswordEncoder.class).encode(PASSWORD));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        Files.deleteIfExists(tokenFile);
+    }
+
+    @Benchmark
+    public JwtResponseDto login() {
+        return authService.login(nextRequest());
+    }
+
+    @Benchmark
+    public JwtResponseDto loginLegacy() {
+        JwtRequestDto loginRequest = nextRequest();
+        authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        User user = userService.getByUsername(loginRequest.getUsername());
+        JwtResponseDto jwtResponseDto = new JwtResponseDto();
+        jwtResponseDto.setId(user.getId());
+        jwtResponseDto.setUsername(user.getEmail());
+        jwtResponseDto.setAccessToken(jwtTokenProvider.createAccessToken(user.getId(), user.getEmail(), user.getAuthorities()));
+        jwtResponseDto.setRefreshToken(jwtTokenProvider.createRefreshToken(user.getId(), user.getEmail()));
+        return jwtResponseDto;
+    }
+
+    private static JwtRequestDto nextRequest() {
+        JwtRequestDto loginRequest = new JwtRequestDto();
+        loginRequest.setUsername("user" + (1 + ThreadLocalRandom.current().nextInt(USERS)) + "@example.com");
+        loginRequest.setPassword(PASSWORD);
+        return loginRequest;
+    }
+
+}
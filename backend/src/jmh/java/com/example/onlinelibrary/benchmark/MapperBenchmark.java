@@ -0,0 +1,78 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.repository.projection.BookView;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
+import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.purchase.PurchaseDto;
+import com.example.onlinelibrary.web.mappers.BookMapper;
+import com.example.onlinelibrary.web.mappers.BookMapperImpl;
+import com.example.onlinelibrary.web.mappers.PurchaseMapper;
+import com.example.onlinelibrary.web.mappers.PurchaseMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the MapStruct list mappings of the book and purchase endpoints, from entities and from projections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    @Param({"20", "200"})
+    private int size;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final PurchaseMapper purchaseMapper = new PurchaseMapperImpl();
+    private List<Book> books;
+    private List<BookView> bookViews;
+    private List<Purchase> purchases;
+    private List<PurchaseView> purchaseViews;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(42);
+        books = data.books(size);
+        bookViews = data.bookViews(size);
+        purchases = data.purchaseEntities(size);
+        purchaseViews = data.purchaseViews(size);
+    }
+
+    @Benchmark
+    public List<BookDto> booksFromEntities() {
+        return bookMapper.toDto(books);
+    }
+
+    @Benchmark
+    public List<BookDto> booksFromViews() {
+        return bookMapper.toViewDto(bookViews);
+    }
+
+    @Benchmark
+    public List<PurchaseDto> purchasesFromEntities() {
+        return purchaseMapper.toDto(purchases);
+    }
+
+    @Benchmark
+    public List<PurchaseDto> purchasesFromViews() {
+        return purchaseMapper.toViewDto(purchaseViews);
+    }
+
+}
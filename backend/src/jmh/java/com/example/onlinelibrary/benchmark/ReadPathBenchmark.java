@@ -0,0 +1,135 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.purchase.PurchaseDto;
+import com.example.onlinelibrary.web.mappers.BookMapper;
+import com.example.onlinelibrary.web.mappers.BookMapperImpl;
+import com.example.onlinelibrary.web.mappers.PurchaseMapper;
+import com.example.onlinelibrary.web.mappers.PurchaseMapperImpl;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the read endpoints on entities against projections, on an in-memory H2 database.
+ * {@code purchasesAsEagerEntities} reproduces the former purchase listing, where the eager associations
+ * loaded every purchased book and the buyer with its authorities only for the mapper to keep their IDs.
+ * Each invocation runs in its own read-only transaction, as the service methods do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    private static final int USERS = 100;
+    private static final int BOOKS = 10_000;
+    private static final String BOOK_PAGE = "SELECT b FROM Book b WHERE b.id > :afterId ORDER BY b.id ASC";
+
+    @Param({"20", "200"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+    private PurchaseRepository purchaseRepository;
+    private BookRepository bookRepository;
+    private final PurchaseMapper purchaseMapper = new PurchaseMapperImpl();
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private long nextUser;
+    private long nextBook;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedDatabase.start("read-path", Map.of());
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        entityManager = context.getBean(EntityManager.class);
+        purchaseRepository = context.getBean(PurchaseRepository.class);
+        bookRepository = context.getBean(BookRepository.class);
+        SyntheticData data = new SyntheticData(42);
+        data.populate(context.getBean(JdbcTemplate.class), USERS, data.books(BOOKS), data.purchases(USERS, BOOKS, rows));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PurchaseDto> purchasesAsEagerEntities() {
+        long userId = nextUser();
+        return readOnly.execute(status -> {
+            List<Purchase> purchases = purchaseRepository.findByUserId(userId);
+            for (Purchase purchase : purchases) {
+                purchase.getUser().getAuthorities().size();
+                purchase.getBook().getTitle();
+            }
+            return purchaseMapper.toDto(purchases);
+        });
+    }
+
+    @Benchmark
+    public List<PurchaseDto> purchasesAsEntities() {
+        long userId = nextUser();
+        return readOnly.execute(status -> purchaseMapper.toDto(purchaseRepository.findByUserId(userId)));
+    }
+
+    @Benchmark
+    public List<PurchaseDto> purchasesAsViews() {
+        long userId = nextUser();
+        return readOnly.execute(status -> purchaseMapper.toViewDto(purchaseRepository.findViewsByUserId(userId)));
+    }
+
+    @Benchmark
+    public List<BookDto> booksPageAsEntities() {
+        long afterId = nextBook();
+        return readOnly.execute(status -> bookMapper.toDto(entityManager.createQuery(BOOK_PAGE, Book.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(rows)
+                .getResultList()));
+    }
+
+    @Benchmark
+    public List<BookDto> booksPageAsViews() {
+        long afterId = nextBook();
+        return readOnly.execute(status ->
+                bookMapper.toViewDto(bookRepository.findViewPageAfterId(afterId, PageRequest.ofSize(rows))));
+    }
+
+    private long nextUser() {
+        nextUser = nextUser % USERS + 1;
+        return nextUser;
+    }
+
+    private long nextBook() {
+        nextBook = (nextBook + rows) % (BOOKS - rows);
+        return nextBook;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.config.CacheConfig;
+import com.example.onlinelibrary.config.props.BookCacheProperties;
+import com.example.onlinelibrary.config.props.RecommendationProperties;
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.service.RecommendationService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.example.onlinelibrary.service.impl.BookServiceImpl;
+import com.example.onlinelibrary.service.impl.RecommendationServiceImpl;
+import com.example.onlinelibrary.service.impl.UserSummaryServiceImpl;
+import com.example.onlinelibrary.service.index.BookAutocompleteIndex;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.service.index.BookSearchIndex;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link RecommendationService#recommendBooksForUser(Long, int, int)} on synthetic purchases,
+ * with the recommendation indexes filled in memory and the books loaded from an in-memory H2 database,
+ * through the service layer book cache or without it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecommendationServiceBenchmark {
+
+    private static final int USERS = 2_000;
+    private static final int BOOKS = 20_000;
+    private static final int PURCHASES_PER_USER = 25;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"service", "none"})
+    private String cacheMode;
+
+    private Path snapshotDirectory;
+    private ConfigurableApplicationContext context;
+    private RecommendationService recommendationService;
+    private long nextUser;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshotDirectory = Files.createTempDirectory("recommendation-benchmark");
+        context = EmbeddedDatabase.start("recommendation-" + cacheMode,
+                Map.of("book-cache.mode", cacheMode,
+                        "recommendation.co-purchase.snapshot-file", snapshotDirectory.resolve("co-purchase.bin").toString()),
+                BookCacheProperties.class, RecommendationProperties.class, CacheConfig.class, BookCache.class,
+                GenreRecommendationIndex.class, CoPurchaseIndex.class, BookOwnershipIndex.class,
+                BookSearchIndex.class, BookAutocompleteIndex.class, BookServiceImpl.class, UserSummaryServiceImpl.class,
+                RecommendationServiceImpl.class);
+
+        SyntheticData data = new SyntheticData(42);
+        List<Book> books = data.books(BOOKS);
+        List<long[]> purchases = data.purchases(USERS, BOOKS, PURCHASES_PER_USER);
+        data.populate(context.getBean(JdbcTemplate.class), USERS, books, purchases);
+
+        GenreRecommendationIndex recommendationIndex = context.getBean(GenreRecommendationIndex.class);
+        CoPurchaseIndex coPurchaseIndex = context.getBean(CoPurchaseIndex.class);
+        for (Book book : books) {
+            recommendationIndex.putBook(book.getId(), book.getGenre(), book.getRating());
+        }
+        for (long[] purchase : purchases) {
+            recommendationIndex.recordPurchase(purchase[1], purchase[2]);
+            coPurchaseIndex.recordPurchase(purchase[0], purchase[1], purchase[2]);
+        }
+        recommendationService = context.getBean(RecommendationService.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(snapshotDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(snapshotDirectory);
+    }
+
+    @Benchmark
+    public List<Book> firstPage() {
+        return recommendationService.recommendBooksForUser(nextUser(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Book> fifthPage() {
+        return recommendationService.recommendBooksForUser(nextUser(), 4 * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    private long nextUser() {
+        nextUser = nextUser % USERS + 1;
+        return nextUser;
+    }
+
+}
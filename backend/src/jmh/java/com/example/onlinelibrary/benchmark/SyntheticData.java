@@ -0,0 +1,276 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.projection.BookView;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
+import com.example.onlinelibrary.web.dto.book.BookDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeded generator of catalog, purchase and user data shaped like the imported data,
+ * so that every run of a benchmark works on the same records.
+ * Books are numbered from 1 and spread evenly over {@link #GENRES} genres. Each user favors a few genres
+ * and buys mostly their popular books, which gives the co-purchase model realistic overlaps.
+ */
+final class SyntheticData {
+
+    static final int GENRES = 20;
+
+    private static final String[] WORDS = {"shadow", "river", "empire", "garden", "silent", "winter", "glass",
+            "iron", "night", "ocean", "secret", "golden", "last", "broken", "city", "forest", "king", "memory",
+            "storm", "letter", "north", "house", "dream", "stone", "fire", "song", "hidden", "light"};
+    private static final DateTimeFormatter EXPIRATION_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final long seed;
+
+    SyntheticData(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates books with IDs 1 to {@code count}.
+     *
+     * @param count The number of books.
+     * @return The books.
+     */
+    List<Book> books(int count) {
+        Random random = new Random(seed);
+        List<Book> books = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle(capitalize(words(random, 2 + random.nextInt(4))));
+            book.setAuthor(capitalize(words(random, 2)));
+            book.setGenre(genreOf(id));
+            book.setDescription(capitalize(words(random, 12 + random.nextInt(20))) + ".");
+            book.setIsbn("978" + (1_000_000_000L + random.nextInt(1_000_000_000)));
+            book.setImage("http://placeimg.com/480/640/any?" + id);
+            book.setPublished(EPOCH.plusDays(random.nextInt(9000)));
+            book.setPublisher(capitalize(words(random, 1)) + " Press");
+            book.setRatingCount(random.nextInt(50));
+            book.setRatingSum(book.getRatingCount() * (1 + random.nextInt(5)));
+            book.setRating(book.calculateRating());
+            books.add(book);
+        }
+        return books;
+    }
+
+    /**
+     * Generates book DTOs with the contents of {@link #books(int)}.
+     *
+     * @param count The number of books.
+     * @return The book DTOs.
+     */
+    List<BookDto> bookDtos(int count) {
+        List<BookDto> dtos = new ArrayList<>(count);
+        for (Book book : books(count)) {
+            BookDto dto = new BookDto();
+            dto.setId(book.getId());
+            dto.setTitle(book.getTitle());
+            dto.setAuthor(book.getAuthor());
+            dto.setGenre(book.getGenre());
+            dto.setDescription(book.getDescription());
+            dto.setIsbn(book.getIsbn());
+            dto.setImage(book.getImage());
+            dto.setPublished(book.getPublished());
+            dto.setPublisher(book.getPublisher());
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    /**
+     * Generates book projections with the contents of {@link #books(int)}.
+     *
+     * @param count The number of books.
+     * @return The book projections.
+     */
+    List<BookView> bookViews(int count) {
+        List<BookView> views = new ArrayList<>(count);
+        for (Book book : books(count)) {
+            views.add(new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(),
+                    book.getDescription(), book.getIsbn(), book.getImage(), book.getPublished(),
+                    book.getPublisher(), book.getRating()));
+        }
+        return views;
+    }
+
+    /**
+     * Generates the purchases of every user, as {@code {purchaseId, userId, bookId}} triples in purchase ID order.
+     *
+     * @param users            The number of users, with IDs 1 to {@code users}.
+     * @param books            The number of books, with IDs 1 to {@code books}.
+     * @param purchasesPerUser The number of distinct books bought by each user.
+     * @return The purchases.
+     */
+    List<long[]> purchases(int users, int books, int purchasesPerUser) {
+        Random random = new Random(seed + 1);
+        int booksPerGenre = books / GENRES;
+        List<long[]> purchases = new ArrayList<>(users * purchasesPerUser);
+        long purchaseId = 1;
+        for (long user = 1; user <= users; user++) {
+            int[] favoriteGenres = {random.nextInt(GENRES), random.nextInt(GENRES), random.nextInt(GENRES)};
+            Set<Long> bought = new LinkedHashSet<>();
+            while (bought.size() < Math.min(purchasesPerUser, books)) {
+                if (random.nextInt(10) < 8) {
+                    // Popular books first: squaring the draw skews it towards the lowest ranks of the genre
+                    double draw = random.nextDouble();
+                    long rank = (long) (draw * draw * booksPerGenre);
+                    bought.add(rank * GENRES + favoriteGenres[random.nextInt(3)] + 1);
+                } else {
+                    bought.add(1L + random.nextInt(books));
+                }
+            }
+            for (long book : bought) {
+                if (book <= books) {
+                    purchases.add(new long[]{purchaseId++, user, book});
+                }
+            }
+        }
+        return purchases;
+    }
+
+    /**
+     * Generates purchase entities referencing user and book stubs.
+     *
+     * @param count The number of purchases.
+     * @return The purchases.
+     */
+    List<Purchase> purchaseEntities(int count) {
+        List<Purchase> purchases = new ArrayList<>(count);
+        User user = new User();
+        user.setId(1L);
+        for (long[] link : purchases(1, Math.max(count * 4, 100), count)) {
+            Book book = new Book();
+            book.setId(link[2]);
+            purchases.add(new Purchase(link[0], user, book, EPOCH.plusMinutes(link[0]), 0));
+        }
+        return purchases;
+    }
+
+    /**
+     * Generates purchase projections matching {@link #purchaseEntities(int)}.
+     *
+     * @param count The number of purchases.
+     * @return The purchase projections.
+     */
+    List<PurchaseView> purchaseViews(int count) {
+        List<PurchaseView> views = new ArrayList<>(count);
+        for (long[] link : purchases(1, Math.max(count * 4, 100), count)) {
+            views.add(new PurchaseView(link[0], link[1], link[2], EPOCH.plusMinutes(link[0]), 0));
+        }
+        return views;
+    }
+
+    /**
+     * Writes a users CSV file in the format of the bundled {@code csv/data-users.csv}.
+     *
+     * @param file  The file to write.
+     * @param count The number of users.
+     */
+    void writeUsersCsv(Path file, int count) {
+        Random random = new Random(seed + 2);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("name,phone,email,address,postalZip,country,password,pan,expdate,cvv\n");
+            for (int user = 1; user <= count; user++) {
+                String name = capitalize(words(random, 2));
+                writer.write(String.join(",",
+                        name,
+                        String.format("(%03d) %03d-%04d", random.nextInt(1000), random.nextInt(1000), random.nextInt(10000)),
+                        name.replace(' ', '.').toLowerCase(Locale.ROOT) + user + "@example.com",
+                        (100 + random.nextInt(9900)) + " " + capitalize(words(random, 1)) + " Rd.",
+                        String.valueOf(10000 + random.nextInt(90000)),
+                        "United States",
+                        Long.toString(random.nextLong() & Long.MAX_VALUE, 36).toUpperCase(Locale.ROOT),
+                        String.format("%04d %04d %04d %04d", random.nextInt(10000), random.nextInt(10000),
+                                random.nextInt(10000), random.nextInt(10000)),
+                        "\"" + EXPIRATION_DATE_FORMATTER.format(EPOCH.plusDays(8000 + random.nextInt(1500))) + "\"",
+                        String.valueOf(100 + random.nextInt(900))));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Inserts the authorities, users with the user role, books and purchases into an empty schema.
+     *
+     * @param jdbcTemplate The template of the database.
+     * @param users        The number of users, with IDs 1 to {@code users}.
+     * @param books        The books to insert.
+     * @param purchases    The purchases, as returned by {@link #purchases(int, int, int)}.
+     */
+    void populate(JdbcTemplate jdbcTemplate, int users, List<Book> books, List<long[]> purchases) {
+        jdbcTemplate.update("INSERT INTO authority (id, authority_name) "
+                + "VALUES (1, 'ROLE_USER'), (2, 'ROLE_ADMIN'), (3, 'ROLE_SUPER_ADMIN')");
+
+        List<Object[]> userRows = new ArrayList<>(users);
+        List<Object[]> authorityRows = new ArrayList<>(users);
+        for (long user = 1; user <= users; user++) {
+            userRows.add(new Object[]{user, "User " + user, "user" + user + "@example.com",
+                    "$2a$10$abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012"});
+            authorityRows.add(new Object[]{user, 1L});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email, password_hash) VALUES (?, ?, ?, ?)", userRows);
+        jdbcTemplate.batchUpdate("INSERT INTO user_authority (user_id, authority_id) VALUES (?, ?)", authorityRows);
+
+        List<Object[]> bookRows = new ArrayList<>(books.size());
+        for (Book book : books) {
+            bookRows.add(new Object[]{book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(),
+                    book.getDescription(), book.getIsbn(), book.getImage(), Timestamp.valueOf(book.getPublished()),
+                    book.getPublisher(), book.getRating(), book.getRatingSum(), book.getRatingCount()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, title, author, genre, description, isbn, image, published, "
+                + "publisher, rating, rating_sum, rating_count, purchase_count) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", bookRows);
+
+        List<Object[]> purchaseRows = new ArrayList<>(purchases.size());
+        for (long[] purchase : purchases) {
+            purchaseRows.add(new Object[]{purchase[0], purchase[1], purchase[2],
+                    Timestamp.valueOf(EPOCH.plusMinutes(purchase[0]))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO purchase (id, user_id, book_id, purchase_date, rating) "
+                + "VALUES (?, ?, ?, ?, 0)", purchaseRows);
+    }
+
+    static String genreOf(long bookId) {
+        return "Genre " + (bookId - 1) % GENRES;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return words.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+}
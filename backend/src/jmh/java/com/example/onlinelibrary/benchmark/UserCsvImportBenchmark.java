@@ -0,0 +1,97 @@
+package com.example.onlinelibrary.benchmark;
+
+import com.example.onlinelibrary.dataextractor.UserDataExtractor;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
+import com.example.onlinelibrary.repository.AuthorityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link UserDataExtractor#importUsersFromCSV} on a synthetic users file, handing the batches
+ * to a blackhole instead of saving them. The {@code plain} encoder isolates reading and parsing the file,
+ * {@code bcrypt-4} adds password hashing at the lowest BCrypt strength.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserCsvImportBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"plain", "bcrypt-4"})
+    private String encoder;
+
+    private Path csvFile;
+    private ConfigurableApplicationContext context;
+    private UserDataExtractor userDataExtractor;
+
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("users", ".csv");
+        new SyntheticData(42).writeUsersCsv(csvFile, USERS);
+
+        context = EmbeddedDatabase.start("user-import", Map.of());
+        context.getBean(JdbcTemplate.class).update("INSERT INTO authority (id, authority_name) "
+                + "VALUES (1, 'ROLE_USER'), (2, 'ROLE_ADMIN'), (3, 'ROLE_SUPER_ADMIN')");
+
+        ImportProperties importProperties = new ImportProperties();
+        importProperties.getUsers().setCsvLocation(csvFile.toUri().toString());
+        userDataExtractor = new UserDataExtractor(passwordEncoder(), context.getBean(AuthorityRepository.class),
+                new DefaultResourceLoader(), importProperties, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        Files.delete(csvFile);
+    }
+
+    @Benchmark
+    public long importUsers(Blackhole blackhole) {
+        return userDataExtractor.importUsersFromCSV(blackhole::consume);
+    }
+
+    private PasswordEncoder passwordEncoder() {
+        if (encoder.equals("plain")) {
+            return new PasswordEncoder() {
+                @Override
+                public String encode(CharSequence rawPassword) {
+                    return rawPassword.toString();
+                }
+
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    return rawPassword.toString().equals(encodedPassword);
+                }
+            };
+        }
+        return new BCryptPasswordEncoder(4);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.example.onlinelibrary.config;
+
+import com.example.onlinelibrary.config.props.BookCacheProperties;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class for the book cache, selected by {@code book-cache.mode}.
+ * In service mode the {@link BookCache} is backed by Caffeine caches; in the other modes it is a no-op,
+ * and in Hibernate mode the same regions are served by the second-level and query caches instead.
+ */
+@Configuration
+public class CacheConfig {
+
+    private static final List<String> CACHE_NAMES = List.of(BookCache.BOOKS, BookCache.BOOK_IDS_BY_GENRE);
+
+    /**
+     * Creates the cache manager used by the service layer: Caffeine caches in service mode,
+     * a cache manager that caches nothing otherwise.
+     *
+     * @param properties The book cache configuration properties.
+     * @return The CacheManager bean instance.
+     */
+    @Bean
+    public CacheManager cacheManager(BookCacheProperties properties) {
+        if (properties.getMode() != BookCacheProperties.Mode.SERVICE) {
+            return new NoOpCacheManager();
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getTtl()))
+                .recordStats());
+        cacheManager.setCacheNames(CACHE_NAMES);
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+
+    /**
+     * Creates the JCache manager holding the Hibernate cache regions, bounded like the service layer caches.
+     *
+     * @param properties The book cache configuration properties.
+     * @return The JCache CacheManager bean instance.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "book-cache", name = "mode", havingValue = "hibernate")
+    public javax.cache.CacheManager hibernateCacheManager(BookCacheProperties properties) {
+        javax.cache.CacheManager cacheManager = Caching
+                .getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(properties.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(properties.getTtl())));
+        configuration.setStatisticsEnabled(true);
+        for (String cacheName : CACHE_NAMES) {
+            if (cacheManager.getCache(cacheName) == null) {
+                cacheManager.createCache(cacheName, configuration);
+            }
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Enables the Hibernate second-level and query caches on top of the JCache regions.
+     *
+     * @param hibernateCacheManager The JCache manager holding the regions.
+     * @return The HibernatePropertiesCustomizer bean instance.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "book-cache", name = "mode", havingValue = "hibernate")
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(javax.cache.CacheManager hibernateCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // Creates the update timestamps region, which must never expire
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+        };
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.example.onlinelibrary.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the application metrics exported to Prometheus.
+ * Endpoints and Spring Data repositories are timed by Spring Boot itself; this class adds the timers of the
+ * service classes annotated with {@link io.micrometer.core.annotation.Timed} and the statistics of the
+ * Hibernate cache regions. Every tag is taken from a fixed set of values, such as a class, method or cache name,
+ * so the number of exported series does not grow with users, books or request paths.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Name of the timer of the service methods, tagged with the class and method name.
+     */
+    public static final String SERVICE_TIMER = "library.service";
+
+    /**
+     * Creates the aspect timing the methods of the classes annotated with {@link io.micrometer.core.annotation.Timed}.
+     *
+     * @param meterRegistry The registry of the application meters.
+     * @return The TimedAspect bean instance.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Binds the hit and miss statistics of the Hibernate cache regions, which are not Spring caches
+     * and therefore not bound by Spring Boot. In service mode the Caffeine caches are bound by Spring Boot.
+     * The regions carry the same tag keys as the Spring caches, since Prometheus drops the meters of a name
+     * whose tag keys differ from the first one.
+     *
+     * @param hibernateCacheManager The JCache manager holding the regions.
+     * @return The MeterBinder bean instance.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "book-cache", name = "mode", havingValue = "hibernate")
+    public MeterBinder hibernateCacheMetrics(javax.cache.CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String cacheName : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(cacheName),
+                        Tags.of("cache.manager", "hibernate", "name", cacheName));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.onlinelibrary.config;
+
+import com.example.onlinelibrary.config.props.DatabaseGuardProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration class for the virtual thread mode, enabled with {@code spring.threads.virtual.enabled} on Java 21.
+ * Spring Boot then serves requests and runs the application task executor on virtual threads. Since the number
+ * of concurrent requests is no longer capped by the Tomcat thread pool, the data source is guarded by a
+ * {@link ConnectionLimitingDataSource} sized to the connection pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * Creates the post-processor wrapping the data source in a {@link ConnectionLimitingDataSource}.
+     *
+     * @param properties The database guard configuration properties.
+     * @return The BeanPostProcessor bean instance.
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+            ObjectProvider<DatabaseGuardProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                DatabaseGuardProperties settings = properties.getObject();
+                int permits = settings.getPermits() > 0 ? settings.getPermits()
+                        : dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize()
+                        : DEFAULT_POOL_SIZE;
+                logger.info("Limiting data source '{}' to {} concurrent connections", beanName, permits);
+                return new ConnectionLimitingDataSource(dataSource, permits, settings.getAcquireTimeout());
+            }
+        };
+    }
+
+}
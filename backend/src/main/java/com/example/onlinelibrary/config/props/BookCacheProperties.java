@@ -0,0 +1,49 @@
+package com.example.onlinelibrary.config.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the book cache.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "book-cache")
+public class BookCacheProperties {
+
+    /**
+     * Where books are cached.
+     */
+    private Mode mode = Mode.SERVICE;
+
+    /**
+     * Maximum number of entries per cache.
+     */
+    private long maximumSize = 10000;
+
+    /**
+     * Lifetime of a cached entry in milliseconds.
+     */
+    private long ttl = 600000;
+
+    public enum Mode {
+
+        /**
+         * No caching, every lookup reaches the database.
+         */
+        NONE,
+
+        /**
+         * Books and genre book-ID lists are cached by the service layer.
+         */
+        SERVICE,
+
+        /**
+         * Books are cached in the Hibernate second-level cache and genre book-ID lists in its query cache.
+         */
+        HIBERNATE
+
+    }
+
+}
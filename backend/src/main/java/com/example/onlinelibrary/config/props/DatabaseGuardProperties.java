@@ -0,0 +1,25 @@
+package com.example.onlinelibrary.config.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the database guard limiting the connections handed out in virtual thread mode.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "database-guard")
+public class DatabaseGuardProperties {
+
+    /**
+     * Maximum number of connections in use at once; 0 for the maximum size of the connection pool.
+     */
+    private int permits = 0;
+
+    /**
+     * Maximum time in milliseconds a request waits for a connection before failing.
+     */
+    private long acquireTimeout = 30000;
+
+}
@@ -0,0 +1,50 @@
+package com.example.onlinelibrary.config.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for purchases.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "purchase")
+public class PurchaseProperties {
+
+    /**
+     * Settings of the write-behind purchase pipeline.
+     */
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * Whether purchases are acknowledged once logged locally and inserted in batches in the background.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory holding the write-ahead log segments.
+         */
+        private String logDirectory = "data/purchase-wal";
+
+        /**
+         * Size in bytes after which a new log segment is started.
+         */
+        private long segmentSize = 4 * 1024 * 1024;
+
+        /**
+         * Maximum number of purchases inserted per batch.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay between two flushes in milliseconds.
+         */
+        private long flushInterval = 200;
+
+    }
+
+}
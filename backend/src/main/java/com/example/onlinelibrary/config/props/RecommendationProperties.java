@@ -0,0 +1,50 @@
+package com.example.onlinelibrary.config.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for book recommendations.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "recommendation")
+public class RecommendationProperties {
+
+    /**
+     * Weight of the co-purchase affinity, normalized to [0, 1], in the blended score.
+     */
+    private double coPurchaseWeight = 0.7;
+
+    /**
+     * Weight of the book rating, normalized to [0, 1], in the blended score.
+     */
+    private double ratingWeight = 0.3;
+
+    /**
+     * Settings of the co-purchase model.
+     */
+    private final CoPurchase coPurchase = new CoPurchase();
+
+    @Data
+    public static class CoPurchase {
+
+        /**
+         * Number of nearest neighbors kept per book.
+         */
+        private int neighbors = 50;
+
+        /**
+         * File the model is saved to and restored from on restart.
+         */
+        private String snapshotFile = "data/co-purchase.bin";
+
+        /**
+         * Delay between two snapshots in milliseconds.
+         */
+        private long snapshotInterval = 300000;
+
+    }
+
+}
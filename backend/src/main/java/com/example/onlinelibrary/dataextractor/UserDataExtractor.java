@@ -1,61 +1,169 @@
 package com.example.onlinelibrary.dataextractor;
 
+import com.example.onlinelibrary.domain.enums.AuthorityName;
 import com.example.onlinelibrary.domain.user.Authority;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
 import com.example.onlinelibrary.repository.AuthorityRepository;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import java.io.FileReader;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static com.example.onlinelibrary.domain.enums.AuthorityName.*;
 
 /**
  * Parses user data from a CSV file and creates User objects.
+ * Rows are read as a stream and hashed batch by batch on a bounded worker pool, so neither
+ * the whole file nor more than a few batches are held in memory at once.
+ * Imported users are counted in the {@value #ROWS_COUNTER} counter, whose rate is the import throughput.
  */
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class UserDataExtractor {
 
-    // CSV file path
-    private static final String CSV_FILE_PATH = "C:\\Workspace\\quadlabels\\online-library\\backend\\src\\main\\resources\\csv\\data-users.csv";
+    private static final Logger logger = LoggerFactory.getLogger(UserDataExtractor.class);
+
+    private static final DateTimeFormatter EXPIRATION_DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String ROWS_COUNTER = "library.import.rows";
 
     private final PasswordEncoder passwordEncoder;
 
     private final AuthorityRepository authorityRepository;
 
+    private final ResourceLoader resourceLoader;
+
+    private final ImportProperties importProperties;
+
+    private final MeterRegistry meterRegistry;
+
     /**
-     * Parses user data from the CSV file and creates User objects.
-     * return List of User objects created from the CSV data.
+     * Parses user data from the configured CSV file and passes the created User objects to the consumer
+     * in batches, in file order. Passwords are BCrypt-encoded in parallel while earlier batches are saved.
      *
-     * @return {@link List<User>}
+     * @param batchConsumer The consumer receiving each batch of users, called from the calling thread.
+     * @return The number of users parsed.
      */
-    public List<User> parseUsersFromCSV() {
-        List<User> users = new ArrayList<>();
-        try (CSVReader csvReader = new CSVReader(new FileReader(CSV_FILE_PATH))) {
+    public long importUsersFromCSV(Consumer<List<User>> batchConsumer) {
+        ImportProperties.Users settings = importProperties.getUsers();
+        int threads = Math.max(1, settings.getHashingThreads());
+        int batchSize = Math.max(1, settings.getBatchSize());
+        Map<AuthorityName, Authority> authorities = loadAuthorities();
+        Resource resource = resourceLoader.getResource(settings.getCsvLocation());
+
+        logger.info("Importing users from {} with {} hashing threads...", resource.getDescription(), threads);
+
+        long start = System.nanoTime();
+        long imported = 0;
+        Counter rowsCounter = Counter.builder(ROWS_COUNTER)
+                .description("Rows written by the data import")
+                .tag("type", "users")
+                .register(meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("user-import-"));
+        Deque<Future<List<User>>> pending = new ArrayDeque<>();
+        try (CSVReader csvReader = new CSVReader(new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8), READ_BUFFER_SIZE))) {
+            csvReader.skip(1);
+            List<String[]> rows = new ArrayList<>(batchSize);
             String[] line;
-            boolean firstLineSkipped = false;
             while ((line = csvReader.readNext()) != null) {
-                if (!firstLineSkipped) {
-                    firstLineSkipped = true;
-                    continue;
+                rows.add(line);
+                if (rows.size() == batchSize) {
+                    // Keep one batch per hashing thread in flight, saving the oldest before reading further
+                    if (pending.size() == threads) {
+                        imported += deliver(pending.poll(), batchConsumer, rowsCounter);
+                    }
+                    pending.add(submitBatch(executor, rows, authorities));
+                    rows = new ArrayList<>(batchSize);
                 }
-                User user = createUser(line);
-                addUserAuthorities(user);
+            }
+            if (!rows.isEmpty()) {
+                pending.add(submitBatch(executor, rows, authorities));
+            }
+            while (!pending.isEmpty()) {
+                imported += deliver(pending.poll(), batchConsumer, rowsCounter);
+            }
+        } catch (CsvValidationException e) {
+            throw new IllegalStateException("Invalid users CSV " + resource.getDescription(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = Math.max((System.nanoTime() - start) / 1_000_000_000.0, 0.001);
+        logger.info("Imported {} users in {} ms ({} users/sec)",
+                imported, Math.round(seconds * 1000), Math.round(imported / seconds));
+        return imported;
+    }
+
+    /**
+     * Submits a batch of CSV rows to be turned into users on the hashing pool.
+     *
+     * @param executor    The hashing pool.
+     * @param rows        The CSV rows of the batch.
+     * @param authorities The authorities by name.
+     * @return The future of the created users.
+     */
+    private Future<List<User>> submitBatch(ExecutorService executor, List<String[]> rows,
+                                           Map<AuthorityName, Authority> authorities) {
+        return executor.submit(() -> {
+            List<User> users = new ArrayList<>(rows.size());
+            for (String[] row : rows) {
+                User user = createUser(row);
+                addUserAuthorities(user, authorities);
                 users.add(user);
             }
-        } catch (CsvValidationException | IOException e) {
-            throw new RuntimeException(e);
+            return users;
+        });
+    }
+
+    /**
+     * Waits for a batch to be hashed and passes it to the consumer.
+     *
+     * @param batch         The future of the batch.
+     * @param batchConsumer The consumer receiving the batch.
+     * @param rowsCounter   The counter of imported users.
+     * @return The number of users in the batch.
+     */
+    private int deliver(Future<List<User>> batch, Consumer<List<User>> batchConsumer, Counter rowsCounter) {
+        try {
+            List<User> users = batch.get();
+            batchConsumer.accept(users);
+            rowsCounter.increment(users.size());
+            return users.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing users", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to import users", e.getCause());
         }
-        return users;
     }
 
     /**
@@ -65,6 +173,7 @@ public class UserDataExtractor {
      */
     public List<User> addAdminAndSuperAdminUsers() {
         List<User> users = new ArrayList<>();
+        Map<AuthorityName, Authority> authorities = loadAuthorities();
         String[][] userDataForAdminAndSuperAdmin = {
                 {"Admin", "(793) 205-4828", "admin@gmail.com", "7588 Cure Street", "38632", "United States", "ADMIN", "648 61449 82813 446", "Oct 1, 2023", "121"},
                 {"Super Admin", "(793) 206-4828", "superadmin@gmail.com", "7555 Fuse Av", "38633", "United States", "SUPERADMIN", "648 61455 82813 446", "Oct 5, 2023", "151"}
@@ -72,7 +181,7 @@ public class UserDataExtractor {
 
         for (String[] userData : userDataForAdminAndSuperAdmin) {
             User user = createUser(userData);
-            addUserAuthorities(user);
+            addUserAuthorities(user, authorities);
             users.add(user);
         }
         return users;
@@ -94,32 +203,42 @@ public class UserDataExtractor {
         user.setCountry(data[5]);
         user.setPassword(passwordEncoder.encode(data[6]));
         user.setPan(data[7]);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
-        LocalDate localDate = LocalDate.parse(data[8], formatter);
+        LocalDate localDate = LocalDate.parse(data[8], EXPIRATION_DATE_FORMATTER);
         LocalDateTime expirationDate = localDate.atStartOfDay();
         user.setExpirationDate(expirationDate);
         user.setCvv(data[9]);
         return user;
     }
 
+    /**
+     * Loads the predefined authorities once, keyed by name.
+     *
+     * @return The authorities by name.
+     */
+    private Map<AuthorityName, Authority> loadAuthorities() {
+        Map<AuthorityName, Authority> authorities = new EnumMap<>(AuthorityName.class);
+        for (Authority authority : authorityRepository.findAll()) {
+            authorities.put(authority.getName(), authority);
+        }
+        return authorities;
+    }
+
     /**
      * Adds ROLE_USER , ROLE_ADMIN and ROLE_SUPER_ADMIN authority to the user.
      *
-     * @param user The user to whom the authority is added.
+     * @param user        The user to whom the authority is added.
+     * @param authorities The authorities by name.
      */
-    private void addUserAuthorities(User user) {
-        Set<Authority> authorities = new HashSet<>();
+    private void addUserAuthorities(User user, Map<AuthorityName, Authority> authorities) {
+        Set<Authority> userAuthorities = new HashSet<>();
         if (user.getName().equals("Admin")) {
-            Authority adminAuthority = authorityRepository.findByName(ROLE_ADMIN);
-            authorities.add(adminAuthority);
+            userAuthorities.add(authorities.get(ROLE_ADMIN));
         } else if (user.getName().equals("Super Admin")) {
-            Authority superAdminAuthority = authorityRepository.findByName(ROLE_SUPER_ADMIN);
-            authorities.add(superAdminAuthority);
+            userAuthorities.add(authorities.get(ROLE_SUPER_ADMIN));
         } else {
-            Authority userAuthority = authorityRepository.findByName(ROLE_USER);
-            authorities.add(userAuthority);
+            userAuthorities.add(authorities.get(ROLE_USER));
         }
 
-        user.setAuthorities(authorities);
+        user.setAuthorities(userAuthorities);
     }
 }
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,7 +16,11 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_rating_id", columnList = "rating, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
 public class Book {
 
     @Id
@@ -51,23 +57,20 @@ public class Book {
     @Column(name = "rating")
     private double rating;
 
-    @ManyToMany(mappedBy = "books", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
-    private List<User> users;
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
 
-    public double calculateRating() {
-        if (purchases == null || purchases.isEmpty()) {
-            return 0.0;
-        }
+    @Column(name = "rating_count", nullable = false)
+    private int ratingCount;
 
-        double totalRating = purchases.stream()
-                .mapToDouble(Purchase::getRating)
-                .sum();
+    @Column(name = "purchase_count", nullable = false)
+    private int purchaseCount;
 
-        return totalRating / purchases.size();
-    }
+    @ManyToMany(mappedBy = "books", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    private List<User> users;
 
-    public int getPurchaseCount() {
-        return purchases != null ? purchases.size() : 0;
+    public double calculateRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
     }
 
 }
@@ -0,0 +1,74 @@
+package com.example.onlinelibrary.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the book catalog: the sort order and the sort key of the last book already returned.
+ * Encoded as an opaque URL-safe token for API clients.
+ */
+@Getter
+@AllArgsConstructor
+public class BookCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final BookSort sort;
+
+    private final long lastId;
+
+    private final double lastRating;
+
+    /**
+     * Creates a cursor positioned before the first book of the given order.
+     *
+     * @param sort The sort order of the catalog.
+     * @return The cursor of the first page.
+     */
+    public static BookCursor first(BookSort sort) {
+        return new BookCursor(sort, 0L, Double.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cursor positioned right after the given book.
+     *
+     * @param sort       The sort order of the catalog.
+     * @param lastId     The ID of the last book of the current page.
+     * @param lastRating The rating of the last book of the current page.
+     * @return The cursor of the next page.
+     */
+    public static BookCursor after(BookSort sort, long lastId, double lastRating) {
+        return new BookCursor(sort, lastId, lastRating);
+    }
+
+    /**
+     * Encodes this cursor as an opaque token.
+     *
+     * @return The URL-safe token.
+     */
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + lastId + SEPARATOR + lastRating;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token The token to decode.
+     * @return The decoded cursor.
+     * @throws IllegalStateException If the token is malformed.
+     */
+    public static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            return new BookCursor(BookSort.valueOf(parts[0]), Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("Invalid cursor.");
+        }
+    }
+
+}
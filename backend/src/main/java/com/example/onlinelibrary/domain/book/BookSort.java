@@ -0,0 +1,18 @@
+package com.example.onlinelibrary.domain.book;
+
+/**
+ * Enumeration of the orders in which the book catalog can be paged.
+ */
+public enum BookSort {
+
+    /**
+     * Ascending book ID.
+     */
+    ID,
+
+    /**
+     * Descending rating, ties broken by ascending book ID.
+     */
+    RATING
+
+}
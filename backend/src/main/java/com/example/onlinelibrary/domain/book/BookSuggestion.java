@@ -0,0 +1,24 @@
+package com.example.onlinelibrary.domain.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An autocomplete suggestion: a book title or author name completing the typed prefix.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookSuggestion {
+
+    private String text;
+
+    private BookSuggestionType type;
+
+    /**
+     * The best weighted book with this title, or null for author suggestions.
+     */
+    private Long bookId;
+
+}
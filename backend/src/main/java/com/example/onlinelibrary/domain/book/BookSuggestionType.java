@@ -0,0 +1,11 @@
+package com.example.onlinelibrary.domain.book;
+
+/**
+ * The book field an autocomplete suggestion completes.
+ */
+public enum BookSuggestionType {
+
+    TITLE,
+    AUTHOR
+
+}
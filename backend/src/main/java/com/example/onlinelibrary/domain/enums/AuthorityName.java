@@ -1,5 +1,10 @@
 package com.example.onlinelibrary.domain.enums;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 /**
  * Enumeration representing the possible authority roles in the application.
  * These roles are used for access control and permission management.
@@ -19,6 +24,19 @@ public enum AuthorityName {
     /**
      * Super administrator role with the highest level of privileges.
      */
-    ROLE_SUPER_ADMIN
+    ROLE_SUPER_ADMIN;
+
+    /**
+     * Roles granting access to every book of the catalog, without user_books associations.
+     */
+    public static final Set<AuthorityName> CATALOG_ACCESS =
+            Collections.unmodifiableSet(EnumSet.of(ROLE_ADMIN, ROLE_SUPER_ADMIN));
+
+    /**
+     * Names of the {@link #CATALOG_ACCESS} roles, as stored in the authority table, for native queries.
+     */
+    public static final Set<String> CATALOG_ACCESS_NAMES = CATALOG_ACCESS.stream()
+            .map(AuthorityName::name)
+            .collect(Collectors.toUnmodifiableSet());
 
 }
\ No newline at end of file
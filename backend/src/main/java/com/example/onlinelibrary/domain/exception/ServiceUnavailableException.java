@@ -0,0 +1,17 @@
+package com.example.onlinelibrary.domain.exception;
+
+/**
+ * Custom exception indicating that the application is too busy to handle the request and that it should be retried later.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Constructs a new ServiceUnavailableException with the specified detail message.
+     *
+     * @param message The detail message (which is saved for later retrieval by the getMessage() method).
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+}
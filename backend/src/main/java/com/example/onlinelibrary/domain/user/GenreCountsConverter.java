@@ -0,0 +1,44 @@
+package com.example.onlinelibrary.domain.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the purchase count of each genre of a {@link UserSummary} as a JSON object in a text column,
+ * which keeps the summary a single row on every database.
+ */
+@Converter
+public class GenreCountsConverter implements AttributeConverter<Map<String, Integer>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, Integer>> GENRE_COUNTS = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Integer> genreCounts) {
+        try {
+            return MAPPER.writeValueAsString(genreCounts != null ? genreCounts : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode genre counts.", e);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return MAPPER.readValue(column, GENRE_COUNTS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot decode genre counts.", e);
+        }
+    }
+
+}
@@ -66,7 +66,8 @@ public class User {
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "user_books",
             joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"),
-            inverseJoinColumns = @JoinColumn(name = "book_id", referencedColumnName = "id"))
+            inverseJoinColumns = @JoinColumn(name = "book_id", referencedColumnName = "id"),
+            indexes = @Index(name = "idx_user_books_user_book", columnList = "user_id, book_id"))
     private List<Book> books;
 
     @OneToMany(mappedBy = "user")
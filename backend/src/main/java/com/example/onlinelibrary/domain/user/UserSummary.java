@@ -0,0 +1,46 @@
+package com.example.onlinelibrary.domain.user;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Library summary of a user, maintained by the writes that change it so that it is read as a single row.
+ * Genres are counted from the purchased books, with the genre the book had when it was bought.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "user_summary")
+public class UserSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "owned_books")
+    private int ownedBooks;
+
+    @Column(name = "purchased_books")
+    private int purchasedBooks;
+
+    @Convert(converter = GenreCountsConverter.class)
+    @Column(name = "genre_counts", length = 4000)
+    private Map<String, Integer> genreCounts = new HashMap<>();
+
+    @Column(name = "last_purchase_date")
+    private LocalDateTime lastPurchaseDate;
+
+    @Column(name = "rating_sum")
+    private long ratingSum;
+
+    @Column(name = "rating_count")
+    private int ratingCount;
+
+}
@@ -0,0 +1,67 @@
+package com.example.onlinelibrary.importdata;
+
+import com.example.onlinelibrary.domain.book.Book;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes imported books with plain JDBC, bypassing the persistence context.
+ * Inserts are sent as JDBC batches, which the MySQL driver rewrites into multi-row inserts
+ * when {@code rewriteBatchedStatements} is enabled on the connection URL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookBulkWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookBulkWriter.class);
+
+    private static final String INSERT_BOOK = "INSERT INTO books "
+            + "(title, author, genre, description, isbn, image, published, publisher, "
+            + "rating, rating_sum, rating_count, purchase_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Deletes all books together with the purchases and user_books associations referencing them,
+     * in one transaction and with foreign key checks on. Unlike a truncation, the deletion keeps the
+     * auto-increment counter, so imported books never reuse the ID of a deleted one.
+     */
+    @Transactional
+    public void deleteAll() {
+        logger.debug("Deleting all books");
+        int purchases = jdbcTemplate.update("DELETE FROM purchase");
+        int links = jdbcTemplate.update("DELETE FROM user_books");
+        int books = jdbcTemplate.update("DELETE FROM books");
+        logger.debug("Deleted {} books, {} purchases and {} user-book links", books, purchases, links);
+    }
+
+    /**
+     * Inserts a batch of new books.
+     *
+     * @param books The books to insert.
+     */
+    public void insert(List<Book> books) {
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (ps, book) -> {
+            ps.setString(1, book.getTitle());
+            ps.setString(2, book.getAuthor());
+            ps.setString(3, book.getGenre());
+            ps.setString(4, book.getDescription());
+            ps.setString(5, book.getIsbn());
+            ps.setString(6, book.getImage());
+            ps.setTimestamp(7, book.getPublished() != null ? Timestamp.valueOf(book.getPublished()) : null);
+            ps.setString(8, book.getPublisher());
+        });
+        logger.debug("Inserted batch of {} books", books.size());
+    }
+
+}
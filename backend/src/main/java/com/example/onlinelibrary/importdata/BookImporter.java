@@ -0,0 +1,108 @@
+package com.example.onlinelibrary.importdata;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.importdata.api.APIBookDto;
+import com.example.onlinelibrary.importdata.api.reader.APIReader;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports books from the API into the database as a streaming pipeline:
+ * records are converted as they arrive and written in JDBC batches of configurable size.
+ * Written rows are counted in the {@value #ROWS_COUNTER} counter, whose rate is the import throughput.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookImporter.class);
+    private static final DateTimeFormatter PUBLISHED_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final String ROWS_COUNTER = "library.import.rows";
+
+    private final APIReader apiReader;
+    private final BookBulkWriter bookBulkWriter;
+    private final ImportProperties importProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Deletes all books together with the purchases and user_books associations referencing them.
+     */
+    public void deleteBooks() {
+        bookBulkWriter.deleteAll();
+    }
+
+    /**
+     * Imports the books read from the API. Existing books are deleted beforehand with {@link #deleteBooks()}.
+     *
+     * @return The number of imported books.
+     */
+    public long importBooks() {
+        long started = System.nanoTime();
+
+        int batchSize = importProperties.getBatchSize();
+        List<Book> batch = new ArrayList<>(batchSize);
+        long[] imported = {0};
+        Counter rows = Counter.builder(ROWS_COUNTER)
+                .description("Rows written by the data import")
+                .tag("type", "books")
+                .register(meterRegistry);
+
+        apiReader.fetchBooksFromAPI(apiBookDto -> {
+            batch.add(toBook(apiBookDto));
+            if (batch.size() >= batchSize) {
+                imported[0] += flush(batch, rows);
+            }
+        });
+        imported[0] += flush(batch, rows);
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        logger.info("Imported {} books in {} ms ({} rows/sec)",
+                imported[0], elapsedMillis, imported[0] * 1000 / elapsedMillis);
+        return imported[0];
+    }
+
+    private int flush(List<Book> batch, Counter rows) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        bookBulkWriter.insert(batch);
+        batch.clear();
+        rows.increment(size);
+        return size;
+    }
+
+    /**
+     * Converts an API record to a new book.
+     *
+     * @param apiBookDto The book read from the API.
+     * @return The corresponding {@link Book}.
+     */
+    private Book toBook(APIBookDto apiBookDto) {
+        Book book = new Book();
+        book.setTitle(apiBookDto.getTitle());
+        book.setAuthor(apiBookDto.getAuthor());
+        book.setGenre(apiBookDto.getGenre());
+        book.setDescription(apiBookDto.getDescription());
+        book.setIsbn(apiBookDto.getIsbn());
+        book.setImage(apiBookDto.getImage());
+        book.setPublished(LocalDate.parse(apiBookDto.getPublished(), PUBLISHED_FORMATTER).atStartOfDay());
+        book.setPublisher(apiBookDto.getPublisher());
+        return book;
+    }
+
+}
@@ -1,28 +1,33 @@
 package com.example.onlinelibrary.importdata;
 
-import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.domain.user.Authority;
 import com.example.onlinelibrary.domain.user.User;
-import com.example.onlinelibrary.importdata.api.reader.APIReader;
 import com.example.onlinelibrary.dataextractor.UserDataExtractor;
 import com.example.onlinelibrary.repository.AuthorityRepository;
-import com.example.onlinelibrary.repository.BookRepository;
 import com.example.onlinelibrary.repository.UserRepository;
+import com.example.onlinelibrary.repository.UserSummaryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import static com.example.onlinelibrary.domain.enums.AuthorityName.*;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Loads initial data from CSV and API sources into the application.
+ * The previously imported data is deleted first, in foreign key order. Once no purchase or user_books
+ * association links users to books, the user and book imports only insert into tables of their own and
+ * run concurrently on the application task executor, which runs them on virtual threads when
+ * {@code spring.threads.virtual.enabled} is set.
  */
 @Component
 @RequiredArgsConstructor
@@ -33,10 +38,11 @@ public class DataLoader implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
 
     private final UserRepository userRepository;
-    private final BookRepository bookRepository;
+    private final UserSummaryRepository userSummaryRepository;
     private final AuthorityRepository authorityRepository;
     private final UserDataExtractor userDataExtractor;
-    private final APIReader apiReader;
+    private final BookImporter bookImporter;
+    private final AsyncTaskExecutor applicationTaskExecutor;
 
     /**
      * Loads initial data from CSV and API sources into the application.
@@ -46,11 +52,41 @@ public class DataLoader implements CommandLineRunner {
      */
     @Override
     public void run(String... args) throws Exception {
+        deleteImportedData();
         createAuthorities();
-        loadUsersFromCSV();
-        loadAdminAndSuperAdminUsers();
-        fetchBooksFromAPI();
-        linkAdminUsersWithBooks();
+        Future<?> users = applicationTaskExecutor.submit(() -> {
+            loadUsersFromCSV();
+            loadAdminAndSuperAdminUsers();
+        });
+        Future<?> books = applicationTaskExecutor.submit(this::fetchBooksFromAPI);
+        await(users);
+        await(books);
+    }
+
+    /**
+     * Deletes the previously imported data in foreign key order: the user summaries, then the purchases,
+     * the user_books associations and the books, then the users with their authority associations.
+     */
+    private void deleteImportedData() {
+        logger.info("Deleting previously imported data...");
+        userSummaryRepository.deleteAllInBatch();
+        bookImporter.deleteBooks();
+        userRepository.deleteAll();
+        logger.info("Previously imported data deleted.");
+    }
+
+    /**
+     * Waits for an import stage to complete.
+     *
+     * @param stage The future of the stage.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void await(Future<?> stage) throws InterruptedException {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data import failed", e.getCause());
+        }
     }
 
     /**
@@ -78,15 +114,12 @@ public class DataLoader implements CommandLineRunner {
     }
 
     /**
-     * Loads user data from CSV file into the database.
+     * Loads user data from CSV file into the database, saving each batch as soon as it is hashed.
      */
-    @Transactional
     public void loadUsersFromCSV() {
         logger.info("Loading user data from CSV...");
-        userRepository.deleteAll();
-        List<User> users = userDataExtractor.parseUsersFromCSV();
-        userRepository.saveAll(users);
-        logger.info("User data loaded from CSV and saved.");
+        long importedUsers = userDataExtractor.importUsersFromCSV(userRepository::saveAll);
+        logger.info("User data loaded from CSV and saved: {} users.", importedUsers);
     }
 
     /**
@@ -101,32 +134,12 @@ public class DataLoader implements CommandLineRunner {
     }
 
     /**
-     * Fetches book data from the API and stores it in the database.
+     * Fetches book data from the API and stores it in the database in JDBC batches.
      */
-    @Transactional
     public void fetchBooksFromAPI() {
         logger.info("Fetching book data from API...");
-        bookRepository.deleteAll();
-        List<Book> booksFromAPI = apiReader.fetchBooksFromAPI();
-        bookRepository.saveAll(booksFromAPI);
-        logger.info("Book data fetched from API and saved.");
+        long importedBooks = bookImporter.importBooks();
+        logger.info("Book data fetched from API and saved: {} books.", importedBooks);
     }
 
-    /**
-     * Links admin users with all books from the API.
-     */
-    @Transactional
-    public void linkAdminUsersWithBooks() {
-        logger.info("Linking admin users with books...");
-        List<User> adminUsers = userRepository.findByAuthorities_Name(ROLE_ADMIN);
-        List<Book> allBooksFromAPI = bookRepository.findAll();
-
-        for (User adminUser : adminUsers) {
-            adminUser.setBooks(allBooksFromAPI);
-            userRepository.save(adminUser);
-        }
-        logger.info("Admin users linked with books.");
-    }
-
-
 }
\ No newline at end of file
@@ -1,27 +1,30 @@
 package com.example.onlinelibrary.importdata.api.reader;
 
-import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.importdata.api.APIBookDto;
-import com.example.onlinelibrary.importdata.api.APIResponse;
-import com.example.onlinelibrary.service.impl.AuthServiceImpl;
+import com.example.onlinelibrary.importdata.api.source.BookSource;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
- * API Reader class for books data
+ * API Reader class for books data.
+ * Fetches pages from the configured {@link BookSource} concurrently, keeping at most
+ * {@code parallelism} pages in flight: a new page is only requested once a fetched page
+ * has been handed to the consumer, so a slow persistence stage throttles the fetching.
+ * Pages are fetched on the application task executor, on virtual threads when
+ * {@code spring.threads.virtual.enabled} is set.
  */
 @Component
 @RequiredArgsConstructor
@@ -29,55 +32,91 @@ import java.util.List;
 public class APIReader {
 
     private static final Logger logger = LoggerFactory.getLogger(APIReader.class);
-    private static final String API_URL = "https://fakerapi.it/api/v1/books?_quantity=100&_locale=en_US";
+
+    private final BookSource bookSource;
+    private final ImportProperties importProperties;
+    private final AsyncTaskExecutor applicationTaskExecutor;
 
     /**
-     * Method fetch books from API
+     * Method fetch books from API and pass each record to the consumer as it is read.
+     * The consumer is always called from the calling thread.
      *
-     * @return {@link List<Book>}
+     * @param consumer The consumer receiving each {@link APIBookDto}
      */
-    public List<Book> fetchBooksFromAPI() {
-
-        logger.info("Fetching books data from API...");
+    public void fetchBooksFromAPI(Consumer<APIBookDto> consumer) {
+        ImportProperties.Api api = importProperties.getApi();
+        int pages = api.getPages();
+        int parallelism = Math.max(1, Math.min(api.getParallelism(), pages));
 
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<APIResponse> responseEntity = restTemplate.exchange(
-                API_URL,
-                HttpMethod.GET,
-                null,
-                APIResponse.class
-        );
+        logger.info("Fetching {} pages of {} books from {} source, {} in flight...",
+                pages, api.getPageSize(), api.getSource(), parallelism);
 
-        List<Book> fetchedBooks = new ArrayList<>();
+        long start = System.nanoTime();
+        long fetched = 0;
+        List<Future<List<APIBookDto>>> inFlight = new ArrayList<>();
+        try {
+            CompletionService<List<APIBookDto>> completionService =
+                    new ExecutorCompletionService<>(applicationTaskExecutor);
+            int submitted = 0;
+            int completed = 0;
+            boolean exhausted = false;
+            for (; submitted < parallelism; submitted++) {
+                inFlight.add(submitPage(completionService, submitted));
+            }
+            while (completed < submitted) {
+                Future<List<APIBookDto>> done = completionService.take();
+                inFlight.remove(done);
+                List<APIBookDto> page = done.get();
+                completed++;
+                if (page.isEmpty()) {
+                    exhausted = true;
+                }
+                for (APIBookDto apiBookDto : page) {
+                    consumer.accept(apiBookDto);
+                    fetched++;
+                }
+                if (!exhausted && submitted < pages) {
+                    inFlight.add(submitPage(completionService, submitted++));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching books", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to fetch books", e.getCause());
+        } finally {
+            // Stops the fetches still in flight when the import fails
+            inFlight.forEach(future -> future.cancel(true));
+        }
 
-        if (responseEntity.getStatusCode() == HttpStatus.OK) {
-            APIResponse apiResponse = responseEntity.getBody();
-            if (apiResponse != null) {
-                List<APIBookDto> apiResponseData = apiResponse.getData();
-                if (apiResponseData != null) {
-                    for (APIBookDto apiBookDto : apiResponseData) {
-                        Book book = new Book();
-                        book.setTitle(apiBookDto.getTitle());
-                        book.setAuthor(apiBookDto.getAuthor());
-                        book.setGenre(apiBookDto.getGenre());
-                        book.setDescription(apiBookDto.getDescription());
-                        book.setIsbn(apiBookDto.getIsbn());
-                        book.setImage(apiBookDto.getImage());
+        double seconds = Math.max((System.nanoTime() - start) / 1_000_000_000.0, 0.001);
+        logger.info("Fetched {} books from API in {} ms ({} books/sec)",
+                fetched, Math.round(seconds * 1000), Math.round(fetched / seconds));
+    }
 
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                        LocalDate localDate = LocalDate.parse(apiBookDto.getPublished(), formatter);
-                        LocalDateTime localDateTime = localDate.atStartOfDay();
-                        book.setPublished(localDateTime);
+    private Future<List<APIBookDto>> submitPage(CompletionService<List<APIBookDto>> completionService, int page) {
+        return completionService.submit(() -> fetchPageWithRetry(page));
+    }
 
-                        book.setPublisher(apiBookDto.getPublisher());
-                        fetchedBooks.add(book);
-                    }
+    /**
+     * Fetch one page, retrying failed attempts with a linearly growing delay.
+     *
+     * @param page The zero-based index of the page.
+     * @return The books of the page.
+     * @throws InterruptedException If the thread is interrupted while waiting to retry.
+     */
+    private List<APIBookDto> fetchPageWithRetry(int page) throws InterruptedException {
+        ImportProperties.Api api = importProperties.getApi();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return bookSource.fetchPage(page, api.getPageSize());
+            } catch (RuntimeException e) {
+                if (attempt >= api.getMaxRetries()) {
+                    throw e;
                 }
+                logger.warn("Fetching page {} failed (attempt {}): {}", page, attempt + 1, e.getMessage());
+                Thread.sleep(api.getRetryBackoff() * (attempt + 1));
             }
         }
-
-        logger.info("Fetched {} books from API", fetchedBooks.size());
-
-        return fetchedBooks;
     }
 }
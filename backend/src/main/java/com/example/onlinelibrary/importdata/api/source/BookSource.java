@@ -0,0 +1,22 @@
+package com.example.onlinelibrary.importdata.api.source;
+
+import com.example.onlinelibrary.importdata.api.APIBookDto;
+
+import java.util.List;
+
+/**
+ * Source of the books imported into the catalog, read page by page.
+ * Implementations must be safe to call from several threads at once.
+ */
+public interface BookSource {
+
+    /**
+     * Fetch one page of books.
+     *
+     * @param page     The zero-based index of the page.
+     * @param pageSize The number of books per page.
+     * @return The books of the page, empty once the source is exhausted.
+     */
+    List<APIBookDto> fetchPage(int page, int pageSize);
+
+}
@@ -0,0 +1,38 @@
+package com.example.onlinelibrary.importdata.api.source;
+
+import com.example.onlinelibrary.importdata.api.APIBookDto;
+import com.example.onlinelibrary.importdata.api.APIResponse;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+/**
+ * Book source reading pages from the Faker REST API.
+ * The page index is used as the generator seed, so every page is distinct and reproducible.
+ */
+@Component
+@ConditionalOnProperty(prefix = "data-import.api", name = "source", havingValue = "faker", matchIfMissing = true)
+public class FakerApiBookSource implements BookSource {
+
+    private final RestTemplate restTemplate;
+    private final String pageUrl;
+
+    public FakerApiBookSource(RestTemplateBuilder restTemplateBuilder, ImportProperties importProperties) {
+        this.restTemplate = restTemplateBuilder.build();
+        this.pageUrl = importProperties.getApi().getUrl() + "?_quantity={quantity}&_seed={seed}&_locale=en_US";
+    }
+
+    @Override
+    public List<APIBookDto> fetchPage(int page, int pageSize) {
+        APIResponse apiResponse = restTemplate.getForObject(pageUrl, APIResponse.class, pageSize, page + 1);
+        if (apiResponse == null || apiResponse.getData() == null) {
+            return List.of();
+        }
+        return apiResponse.getData();
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.example.onlinelibrary.importdata.api.source;
+
+import com.example.onlinelibrary.importdata.api.APIBookDto;
+import com.example.onlinelibrary.importdata.api.APIResponse;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Book source reading pages from a local JSON file in the API response format.
+ * Stands in for the remote API in tests and offline environments.
+ */
+@Component
+@ConditionalOnProperty(prefix = "data-import.api", name = "source", havingValue = "file")
+public class FileBookSource implements BookSource {
+
+    private final List<APIBookDto> books;
+
+    public FileBookSource(ResourceLoader resourceLoader, ObjectMapper objectMapper, ImportProperties importProperties) {
+        Resource resource = resourceLoader.getResource(importProperties.getApi().getFile());
+        try (InputStream inputStream = resource.getInputStream()) {
+            APIResponse apiResponse = objectMapper.readValue(inputStream, APIResponse.class);
+            this.books = apiResponse.getData() != null ? apiResponse.getData() : List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read books from " + resource.getDescription(), e);
+        }
+    }
+
+    @Override
+    public List<APIBookDto> fetchPage(int page, int pageSize) {
+        int from = page * pageSize;
+        if (from >= books.size()) {
+            return List.of();
+        }
+        return books.subList(from, Math.min(from + pageSize, books.size()));
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.example.onlinelibrary.importdata.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for the startup data import.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "data-import")
+public class ImportProperties {
+
+    /**
+     * Number of books written to the database per JDBC batch.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Settings of the book API the catalog is read from.
+     */
+    private final Api api = new Api();
+
+    /**
+     * Settings of the CSV user import.
+     */
+    private final Users users = new Users();
+
+    @Data
+    public static class Api {
+
+        /**
+         * Source of the books: "faker" for the Faker REST API, "file" for a local JSON file.
+         */
+        private String source = "faker";
+
+        /**
+         * Base URL of the Faker books endpoint.
+         */
+        private String url = "https://fakerapi.it/api/v1/books";
+
+        /**
+         * Location of the JSON file read by the file source, in the API response format.
+         */
+        private String file = "classpath:api/books.json";
+
+        /**
+         * Number of books requested per page.
+         */
+        private int pageSize = 100;
+
+        /**
+         * Number of pages to import.
+         */
+        private int pages = 1;
+
+        /**
+         * Maximum number of pages fetched concurrently.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Number of retries of a failed page fetch.
+         */
+        private int maxRetries = 3;
+
+        /**
+         * Delay in milliseconds before the first retry, growing linearly with each attempt.
+         */
+        private long retryBackoff = 500;
+
+    }
+
+    @Data
+    public static class Users {
+
+        /**
+         * Location of the users CSV file, as a classpath: or file: resource.
+         */
+        private String csvLocation = "classpath:csv/data-users.csv";
+
+        /**
+         * Number of users hashed and saved together.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Number of threads hashing passwords; defaults to the number of available processors.
+         */
+        private int hashingThreads = Runtime.getRuntime().availableProcessors();
+
+    }
+
+}
@@ -1,13 +1,24 @@
 package com.example.onlinelibrary.repository;
 
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.repository.projection.BookRatingView;
+import com.example.onlinelibrary.repository.projection.BookSuggestionView;
+import com.example.onlinelibrary.repository.projection.BookTextView;
+import com.example.onlinelibrary.repository.projection.BookView;
+import com.example.onlinelibrary.repository.projection.CartBookView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing book entities.
@@ -15,10 +26,66 @@ import java.util.List;
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    /**
+     * Constructor expression building the {@link BookView} projection.
+     */
+    String BOOK_VIEW_COLUMNS = "new com.example.onlinelibrary.repository.projection.BookView("
+            + "b.id, b.title, b.author, b.genre, b.description, b.isbn, b.image, b.published, b.publisher, b.rating)";
+
     @Modifying
     @Query(value = "INSERT INTO user_books (user_id, book_id) VALUES (:userId, :bookId)", nativeQuery = true)
     void assignBookToUser(@Param("userId") Long userId, @Param("bookId") Long bookId);
 
+    /**
+     * Atomically apply a rating change to a book's rating sum and count and recompute its average.
+     * The average is assigned first so that it reads the previous sum and count on every database,
+     * including MySQL which evaluates assignments left to right.
+     *
+     * @param bookId     The ID of the rated book.
+     * @param sumDelta   The change of the rating sum.
+     * @param countDelta The change of the number of ratings.
+     * @return The number of updated books.
+     */
+    @Modifying
+    @Query("UPDATE Book b SET "
+            + "b.rating = CASE WHEN b.ratingCount + :countDelta = 0 THEN 0.0 "
+            + "ELSE (b.ratingSum + :sumDelta) * 1.0 / (b.ratingCount + :countDelta) END, "
+            + "b.ratingSum = b.ratingSum + :sumDelta, "
+            + "b.ratingCount = b.ratingCount + :countDelta "
+            + "WHERE b.id = :bookId")
+    int applyRatingChange(@Param("bookId") Long bookId,
+                          @Param("sumDelta") long sumDelta,
+                          @Param("countDelta") int countDelta);
+
+    /**
+     * Atomically increment the purchase count of a book.
+     *
+     * @param bookId The ID of the purchased book.
+     * @return The number of updated books.
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.purchaseCount = b.purchaseCount + 1 WHERE b.id = :bookId")
+    int incrementPurchaseCount(@Param("bookId") Long bookId);
+
+    /**
+     * Atomically increment the purchase count of several books at once.
+     *
+     * @param bookIds The IDs of the purchased books, each purchased once.
+     * @return The number of updated books.
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.purchaseCount = b.purchaseCount + 1 WHERE b.id IN :bookIds")
+    int incrementPurchaseCounts(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Find the average rating of a book.
+     *
+     * @param bookId The ID of the book.
+     * @return The average rating of the book.
+     */
+    @Query("SELECT b.rating FROM Book b WHERE b.id = :bookId")
+    double findRatingById(@Param("bookId") Long bookId);
+
     /**
      * Find books by their genre.
      *
@@ -28,10 +95,160 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> findByGenre(String genre);
 
     /**
-     * Find books associated with a specific user.
+     * Find the IDs of the books of a genre.
+     * Served from the Hibernate query cache when the book cache runs in Hibernate mode.
+     *
+     * @param genre The genre of the books.
+     * @return A list of book IDs in ascending order.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "bookIdsByGenre")
+    })
+    @Query("SELECT b.id FROM Book b WHERE b.genre = :genre ORDER BY b.id ASC")
+    List<Long> findIdsByGenre(@Param("genre") String genre);
+
+    /**
+     * Find the books of a cart together with whether the user has purchased each of them already.
+     *
+     * @param userId  The ID of the buying user.
+     * @param bookIds The IDs of the books in the cart.
+     * @return A list of {@link CartBookView} projections, one per book found, in no particular order.
+     */
+    @Query("SELECT new com.example.onlinelibrary.repository.projection.CartBookView(b, "
+            + "CASE WHEN EXISTS (SELECT 1 FROM Purchase p WHERE p.book = b AND p.user.id = :userId) "
+            + "THEN true ELSE false END) "
+            + "FROM Book b WHERE b.id IN :bookIds")
+    List<CartBookView> findCartViews(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Find the IDs of the books following the given ID, in ascending order.
+     *
+     * @param afterId  The ID of the last book already returned.
+     * @param pageable The page request limiting the number of books.
+     * @return A list of book IDs.
+     */
+    @Query("SELECT b.id FROM Book b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<Long> findIdPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Find the IDs of the books associated with a specific user following the given ID, in ascending order.
+     * Reads the user_books index alone, so that the page is found without joining and sorting the whole library;
+     * the order includes the fixed user ID so that it matches the index on every database.
+     *
+     * @param userId   The ID of the user whose associated books will be retrieved.
+     * @param afterId  The ID of the last book already returned.
+     * @param pageable The page request limiting the number of books.
+     * @return A list of book IDs.
+     */
+    @Query(value = "SELECT book_id FROM user_books WHERE user_id = :userId AND book_id > :afterId "
+            + "ORDER BY user_id, book_id", nativeQuery = true)
+    List<Long> findBookIdPageByUserIdAfterId(@Param("userId") Long userId,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * Find all books in ascending ID order, as projections without entity state.
+     *
+     * @return A list of {@link BookView} projections.
+     */
+    @Query("SELECT " + BOOK_VIEW_COLUMNS + " FROM Book b ORDER BY b.id ASC")
+    List<BookView> findAllViews();
+
+    /**
+     * Find the books following the given ID, in ascending ID order.
+     *
+     * @param afterId  The ID of the last book already returned.
+     * @param pageable The page request limiting the number of books.
+     * @return A list of {@link BookView} projections.
+     */
+    @Query("SELECT " + BOOK_VIEW_COLUMNS + " FROM Book b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<BookView> findViewPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Find the books following the given rating and ID, in descending rating and ascending ID order.
+     *
+     * @param afterRating The rating of the last book already returned.
+     * @param afterId     The ID of the last book already returned.
+     * @param pageable    The page request limiting the number of books.
+     * @return A list of {@link BookView} projections.
+     */
+    @Query("SELECT " + BOOK_VIEW_COLUMNS + " FROM Book b "
+            + "WHERE b.rating < :afterRating OR (b.rating = :afterRating AND b.id > :afterId) "
+            + "ORDER BY b.rating DESC, b.id ASC")
+    List<BookView> findViewPageAfterRating(@Param("afterRating") double afterRating,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    /**
+     * Stream all books in ascending ID order, row by row from the database cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A {@link Stream} of {@link Book} entities.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id ASC")
+    Stream<Book> streamAll();
+
+    /**
+     * Stream the books associated with a specific user in ascending ID order, row by row from the database cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param userId The ID of the user whose associated books will be streamed.
+     * @return A {@link Stream} of {@link Book} entities.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b JOIN b.users u WHERE u.id = :userId ORDER BY b.id ASC")
+    Stream<Book> streamByUserId(@Param("userId") Long userId);
+
+    /**
+     * Stream the searchable text of all books, row by row from the database cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A {@link Stream} of {@link BookTextView} projections, one per book.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.description AS description, "
+            + "b.publisher AS publisher, b.isbn AS isbn FROM Book b")
+    Stream<BookTextView> streamAllTextViews();
+
+    /**
+     * Stream the titles, authors and popularity of all books, row by row from the database cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A {@link Stream} of {@link BookSuggestionView} projections, one per book.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.rating AS rating, "
+            + "b.purchaseCount AS purchaseCount FROM Book b")
+    Stream<BookSuggestionView> streamAllSuggestionViews();
+
+    /**
+     * Find the id, genre and rating of every book.
+     *
+     * @return A list of {@link BookRatingView} projections, one per book.
+     */
+    @Query("SELECT b.id AS id, b.genre AS genre, b.rating AS rating FROM Book b")
+    List<BookRatingView> findAllRatingViews();
+
+    /**
+     * Find the id, genre and rating of the given books.
      *
-     * @param userId The ID of the user whose associated books will be retrieved.
-     * @return A list of {@link Book} entities associated with the user.
+     * @param bookIds The IDs of the books.
+     * @return A list of {@link BookRatingView} projections, one per book found.
      */
-    List<Book> findByUsers_Id(Long userId);
+    @Query("SELECT b.id AS id, b.genre AS genre, b.rating AS rating FROM Book b WHERE b.id IN :bookIds")
+    List<BookRatingView> findRatingViewsByIdIn(@Param("bookIds") Collection<Long> bookIds);
 }
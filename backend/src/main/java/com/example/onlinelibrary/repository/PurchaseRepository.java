@@ -2,11 +2,24 @@ package com.example.onlinelibrary.repository;
 
 import com.example.onlinelibrary.domain.purchase.Purchase;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.projection.PurchaseGenreView;
+import com.example.onlinelibrary.repository.projection.PurchaseLinkView;
+import com.example.onlinelibrary.repository.projection.PurchaseRatingView;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing purchase entities.
@@ -23,12 +36,16 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
     List<Purchase> findByUserId(Long userId);
 
     /**
-     * Find purchases associated with a specific user.
+     * Find the columns of the purchases of a specific user, in ascending ID order,
+     * reading the user and book IDs from the foreign keys without joining their tables.
      *
-     * @param user The user whose associated purchases will be retrieved.
-     * @return A list of {@link Purchase} entities associated with the user.
+     * @param userId The ID of the user whose purchases will be retrieved.
+     * @return A list of {@link PurchaseView} projections, one per purchase.
      */
-    List<Purchase> findByUser(User user);
+    @Query("SELECT new com.example.onlinelibrary.repository.projection.PurchaseView("
+            + "p.id, p.user.id, p.book.id, p.purchaseDate, p.rating) "
+            + "FROM Purchase p WHERE p.user.id = :userId ORDER BY p.id ASC")
+    List<PurchaseView> findViewsByUserId(@Param("userId") Long userId);
 
     /**
      * Find a purchase by its ID and associated user.
@@ -39,4 +56,69 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
      */
     Optional<Purchase> findByIdAndUser(Long purchaseId, User user);
 
+    /**
+     * Find the current rating of a purchase and the IDs of the purchased book and of the buyer,
+     * locking the purchase row until the end of the transaction.
+     *
+     * @param purchaseId The ID of the purchase.
+     * @return An {@link Optional} containing the {@link PurchaseRatingView} of the purchase.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.user.id AS userId, p.book.id AS bookId, p.rating AS rating FROM Purchase p "
+            + "WHERE p.id = :purchaseId")
+    Optional<PurchaseRatingView> findRatingViewByIdForUpdate(@Param("purchaseId") Long purchaseId);
+
+    /**
+     * Set the rating of a purchase.
+     *
+     * @param purchaseId The ID of the purchase to rate.
+     * @param rating     The new rating.
+     * @return The number of updated purchases.
+     */
+    @Modifying
+    @Query("UPDATE Purchase p SET p.rating = :rating WHERE p.id = :purchaseId")
+    int updateRating(@Param("purchaseId") Long purchaseId, @Param("rating") int rating);
+
+    /**
+     * Find the user and book ids of every purchase.
+     *
+     * @return A list of {@link PurchaseLinkView} projections, one per purchase.
+     */
+    @Query("SELECT p.id AS id, p.user.id AS userId, p.book.id AS bookId FROM Purchase p")
+    List<PurchaseLinkView> findAllLinkViews();
+
+    /**
+     * Stream the user and book ids of the purchases made after a given one, in ascending ID order,
+     * row by row from the database cursor. Must be consumed inside a transaction and closed afterwards.
+     *
+     * @param afterId The ID of the last purchase already seen, 0 to stream every purchase.
+     * @return A {@link Stream} of {@link PurchaseLinkView} projections, one per purchase.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p.id AS id, p.user.id AS userId, p.book.id AS bookId FROM Purchase p "
+            + "WHERE p.id > :afterId ORDER BY p.id ASC")
+    Stream<PurchaseLinkView> streamLinkViewsAfterId(@Param("afterId") long afterId);
+
+    /**
+     * Aggregate the purchases of a user by genre of the purchased book.
+     *
+     * @param userId The ID of the user.
+     * @return A list of {@link PurchaseGenreView} projections, one per genre bought by the user.
+     */
+    @Query("SELECT b.genre AS genre, COUNT(p) AS purchases, MAX(p.purchaseDate) AS lastPurchaseDate, "
+            + "SUM(p.rating) AS ratingSum, SUM(CASE WHEN p.rating <> 0 THEN 1 ELSE 0 END) AS ratingCount "
+            + "FROM Purchase p JOIN p.book b WHERE p.user.id = :userId GROUP BY b.genre")
+    List<PurchaseGenreView> findGenreViewsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find the highest purchase ID.
+     *
+     * @return The highest purchase ID, or 0 if there are no purchases.
+     */
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Purchase p")
+    long findMaxId();
+
 }
@@ -2,11 +2,20 @@ package com.example.onlinelibrary.repository;
 
 import com.example.onlinelibrary.domain.enums.AuthorityName;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.projection.UserBookLinkView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing user entities.
@@ -14,6 +23,13 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Native subquery selecting the IDs of the users holding one of the roles bound to its {@code catalogRoles}
+     * parameter, which callers set to {@link AuthorityName#CATALOG_ACCESS_NAMES}.
+     */
+    String CATALOG_USER_IDS = "SELECT ua.user_id FROM user_authority ua JOIN authority a ON a.id = ua.authority_id "
+            + "WHERE a.authority_name IN (:catalogRoles)";
+
     /**
      * Find a user by their email.
      *
@@ -23,13 +39,46 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     /**
-     * Find a user by their ID and a specific book ID that they are associated with.
+     * Check whether a user is associated with a specific book.
      *
      * @param userId  The ID of the user.
      * @param bookId  The ID of the book associated with the user.
-     * @return An {@link Optional} containing the {@link User} entity representing the user.
+     * @return True if the user is associated with the book, false otherwise.
+     */
+    boolean existsByIdAndBooks_Id(Long userId, Long bookId);
+
+    /**
+     * Count the books associated with a specific user.
+     *
+     * @param userId The ID of the user.
+     * @return The number of books associated with the user.
+     */
+    @Query("SELECT COUNT(b) FROM User u JOIN u.books b WHERE u.id = :userId")
+    long countBooksById(@Param("userId") Long userId);
+
+    /**
+     * Stream every user to book association, row by row from the database cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A {@link Stream} of {@link UserBookLinkView} projections.
      */
-    Optional<User> findByIdAndBooks_Id(Long userId, Long bookId);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.id AS userId, b.id AS bookId FROM User u JOIN u.books b")
+    Stream<UserBookLinkView> streamAllBookLinks();
+
+    /**
+     * Replace the password hash of a user if it still is the given one.
+     *
+     * @param id          The ID of the user.
+     * @param currentHash The password hash to replace.
+     * @param newHash     The new password hash.
+     * @return The number of updated users, 0 if the hash was changed meanwhile.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :currentHash")
+    int updatePasswordHash(@Param("id") Long id,
+                           @Param("currentHash") String currentHash,
+                           @Param("newHash") String newHash);
 
     /**
      * Find users by the name of a specific authority role.
@@ -38,4 +87,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return A list of {@link User} entities with the specified authority role.
      */
     List<User> findByAuthorities_Name(AuthorityName roleName);
+
+    /**
+     * Check whether a user holds one of the given authority roles.
+     *
+     * @param id        The ID of the user.
+     * @param roleNames The names of the authority roles.
+     * @return True if the user holds one of the roles, false otherwise.
+     */
+    boolean existsByIdAndAuthorities_NameIn(Long id, Collection<AuthorityName> roleNames);
+
+    /**
+     * Find the IDs of the users holding one of the given authority roles.
+     *
+     * @param roleNames The names of the authority roles.
+     * @return The IDs of the users.
+     */
+    @Query("SELECT DISTINCT u.id FROM User u JOIN u.authorities a WHERE a.name IN :roleNames")
+    List<Long> findIdsByAuthorityNames(@Param("roleNames") Collection<AuthorityName> roleNames);
 }
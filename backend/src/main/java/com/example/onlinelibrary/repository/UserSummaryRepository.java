@@ -0,0 +1,60 @@
+package com.example.onlinelibrary.repository;
+
+import com.example.onlinelibrary.domain.enums.AuthorityName;
+import com.example.onlinelibrary.domain.user.UserSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing user summary entities.
+ */
+@Repository
+public interface UserSummaryRepository extends JpaRepository<UserSummary, Long> {
+
+    /**
+     * Find the summary of a user and lock it until the end of the transaction,
+     * so that concurrent writes of the same user apply their changes one after the other.
+     *
+     * @param userId The ID of the user.
+     * @return An {@link Optional} containing the {@link UserSummary} of the user.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserSummary s WHERE s.userId = :userId")
+    Optional<UserSummary> findByIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Atomically increment the owned book count of a user and of every user with catalog access.
+     *
+     * @param userId       The ID of the user the new book is assigned to.
+     * @param catalogRoles The names of the {@link AuthorityName#CATALOG_ACCESS} roles.
+     * @return The number of updated summaries.
+     */
+    @Modifying
+    @Query(value = "UPDATE user_summary SET owned_books = owned_books + 1 "
+            + "WHERE user_id = :userId OR user_id IN (" + UserRepository.CATALOG_USER_IDS + ")", nativeQuery = true)
+    int incrementOwnedBooks(@Param("userId") Long userId, @Param("catalogRoles") Collection<String> catalogRoles);
+
+    /**
+     * Atomically decrement the owned book count of every user owning a book, including the users with
+     * catalog access.
+     *
+     * @param bookId       The ID of the book about to be removed.
+     * @param catalogRoles The names of the {@link AuthorityName#CATALOG_ACCESS} roles.
+     * @return The number of updated summaries.
+     */
+    @Modifying
+    @Query(value = "UPDATE user_summary SET owned_books = owned_books - 1 "
+            + "WHERE user_id IN (SELECT user_id FROM user_books WHERE book_id = :bookId) "
+            + "OR user_id IN (" + UserRepository.CATALOG_USER_IDS + ")", nativeQuery = true)
+    int decrementOwnedBooksOfOwners(@Param("bookId") Long bookId,
+                                    @Param("catalogRoles") Collection<String> catalogRoles);
+
+}
@@ -0,0 +1,14 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing the book columns needed to rank recommendation candidates.
+ */
+public interface BookRatingView {
+
+    Long getId();
+
+    String getGenre();
+
+    double getRating();
+
+}
@@ -0,0 +1,18 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing the book columns needed to build autocomplete suggestions.
+ */
+public interface BookSuggestionView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    double getRating();
+
+    int getPurchaseCount();
+
+}
@@ -0,0 +1,20 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing the searchable text columns of a book.
+ */
+public interface BookTextView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getDescription();
+
+    String getPublisher();
+
+    String getIsbn();
+
+}
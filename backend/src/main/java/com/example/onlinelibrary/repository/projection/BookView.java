@@ -0,0 +1,37 @@
+package com.example.onlinelibrary.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the book columns returned by the book listing endpoints,
+ * plus the rating the catalog cursor is keyed on.
+ * Built by JPQL constructor expressions, which avoid the proxy behind interface projections.
+ */
+@Getter
+@AllArgsConstructor
+public class BookView {
+
+    private final Long id;
+
+    private final String title;
+
+    private final String author;
+
+    private final String genre;
+
+    private final String description;
+
+    private final String isbn;
+
+    private final String image;
+
+    private final LocalDateTime published;
+
+    private final String publisher;
+
+    private final double rating;
+
+}
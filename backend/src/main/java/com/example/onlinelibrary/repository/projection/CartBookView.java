@@ -0,0 +1,19 @@
+package com.example.onlinelibrary.repository.projection;
+
+import com.example.onlinelibrary.domain.book.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projection of a book in a cart, with whether the buying user has purchased it already.
+ * Built by a JPQL constructor expression, so both are read in one query.
+ */
+@Getter
+@AllArgsConstructor
+public class CartBookView {
+
+    private final Book book;
+
+    private final boolean purchased;
+
+}
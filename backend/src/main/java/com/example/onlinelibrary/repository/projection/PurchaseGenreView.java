@@ -0,0 +1,20 @@
+package com.example.onlinelibrary.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection aggregating the purchases of a user in one genre, used to build a user summary from scratch.
+ */
+public interface PurchaseGenreView {
+
+    String getGenre();
+
+    long getPurchases();
+
+    LocalDateTime getLastPurchaseDate();
+
+    long getRatingSum();
+
+    long getRatingCount();
+
+}
@@ -0,0 +1,14 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing which user bought which book, without loading either entity.
+ */
+public interface PurchaseLinkView {
+
+    Long getId();
+
+    Long getUserId();
+
+    Long getBookId();
+
+}
@@ -0,0 +1,14 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing the rating of a purchase, the book it rates and the user who rated it.
+ */
+public interface PurchaseRatingView {
+
+    Long getUserId();
+
+    Long getBookId();
+
+    int getRating();
+
+}
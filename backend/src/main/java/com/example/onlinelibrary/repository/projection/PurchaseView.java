@@ -0,0 +1,27 @@
+package com.example.onlinelibrary.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the purchase columns returned by the purchase endpoints,
+ * with the user and book as foreign key values instead of joined entities.
+ * Built by JPQL constructor expressions, which avoid the proxy behind interface projections.
+ */
+@Getter
+@AllArgsConstructor
+public class PurchaseView {
+
+    private final Long id;
+
+    private final Long userId;
+
+    private final Long bookId;
+
+    private final LocalDateTime purchaseDate;
+
+    private final int rating;
+
+}
@@ -0,0 +1,12 @@
+package com.example.onlinelibrary.repository.projection;
+
+/**
+ * Projection exposing which user owns which book, without loading either entity.
+ */
+public interface UserBookLinkView {
+
+    Long getUserId();
+
+    Long getBookId();
+
+}
@@ -25,4 +25,11 @@ public interface AuthService {
      */
     JwtResponseDto refresh(String refreshToken);
 
+    /**
+     * Logs a user out everywhere by revoking all of their refresh and access tokens.
+     *
+     * @param userId The ID of the user to log out.
+     */
+    void logout(Long userId);
+
 }
@@ -2,8 +2,13 @@ package com.example.onlinelibrary.service;
 
 
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookCursor;
+import com.example.onlinelibrary.domain.book.BookSuggestion;
+import com.example.onlinelibrary.repository.projection.BookView;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing book-related operations.
@@ -28,6 +33,7 @@ public interface BookService {
 
     /**
      * Create a new book and associate it with a specific user.
+     * Users with catalog access already access every book and get no association.
      *
      * @param book   The {@link Book} entity representing the new book.
      * @param userId The ID of the user to whom the book will be associated.
@@ -51,18 +57,73 @@ public interface BookService {
     List<Book> getBooksByGenre(String genre);
 
     /**
-     * Get a list of all books.
+     * Get a list of books by their IDs.
      *
-     * @return A list of all {@link Book} entities.
+     * @param ids The IDs of the books to retrieve.
+     * @return A list of the {@link Book} entities found, in the order of the IDs.
      */
-    List<Book> getAllBooks();
+    List<Book> getBooksByIds(Collection<Long> ids);
 
     /**
-     * Get a list of books associated with a specific user.
+     * Search the catalog by title, author, description, publisher and ISBN.
      *
-     * @param id The ID of the user whose books will be retrieved.
-     * @return A list of {@link Book} entities associated with the user.
+     * @param query The search query.
+     * @param limit The maximum number of books to return.
+     * @return A list of the matching {@link Book} entities, most relevant first.
      */
-    List<Book> getAllByUserId(Long id);
+    List<Book> searchBooks(String query, int limit);
+
+    /**
+     * Suggest book titles and authors completing a typed prefix.
+     *
+     * @param prefix The typed prefix.
+     * @param limit  The maximum number of suggestions to return.
+     * @return A list of {@link BookSuggestion}, best weighted first.
+     */
+    List<BookSuggestion> suggestBooks(String prefix, int limit);
+
+    /**
+     * Get all books, in ascending ID order.
+     *
+     * @return A list of {@link BookView} projections of all books.
+     */
+    List<BookView> getAllBooks();
+
+    /**
+     * Get a page of books following the given cursor.
+     *
+     * @param cursor The position of the page in the catalog.
+     * @param size   The maximum number of books to return.
+     * @return A list of at most {@code size} {@link BookView} projections.
+     */
+    List<BookView> getBooksPage(BookCursor cursor, int size);
+
+    /**
+     * Get a page of the books associated with a specific user, in ascending ID order.
+     * The library of a user with catalog access is the whole catalog.
+     * Only the IDs of the page are queried; the books are served from the book cache.
+     *
+     * @param userId  The ID of the user whose books will be retrieved.
+     * @param afterId The ID of the last book of the previous page, 0 for the first page.
+     * @param size    The maximum number of books to return.
+     * @return A list of at most {@code size} {@link Book} entities associated with the user.
+     */
+    List<Book> getBooksPageByUserId(Long userId, long afterId, int size);
+
+    /**
+     * Pass every book of the catalog to the consumer, one at a time and without loading the catalog in memory.
+     *
+     * @param consumer The consumer receiving each {@link Book}, in ascending ID order.
+     */
+    void streamAllBooks(Consumer<Book> consumer);
+
+    /**
+     * Pass every book associated with a specific user to the consumer, one at a time.
+     * The library of a user with catalog access is the whole catalog.
+     *
+     * @param userId   The ID of the user whose books will be streamed.
+     * @param consumer The consumer receiving each {@link Book}, in ascending ID order.
+     */
+    void streamBooksByUserId(Long userId, Consumer<Book> consumer);
 
 }
@@ -4,6 +4,7 @@ import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
 import com.example.onlinelibrary.domain.purchase.Purchase;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
 
 import java.util.List;
 
@@ -29,6 +30,17 @@ public interface PurchaseService {
      */
     Purchase createPurchase(User user, Book book);
 
+    /**
+     * Create the purchase records of a user buying several books at once, in a single transaction.
+     *
+     * @param user    The user making the purchases.
+     * @param bookIds The IDs of the books being purchased, without duplicates.
+     * @return The created {@link Purchase} entities, in the order of the book IDs.
+     * @throws IllegalStateException     If a book ID is given more than once.
+     * @throws ResourceNotFoundException If a book does not exist.
+     */
+    List<Purchase> checkout(User user, List<Long> bookIds);
+
     /**
      * Rate a purchase.
      *
@@ -41,9 +53,9 @@ public interface PurchaseService {
      * Get all purchases made by the specified user.
      *
      * @param user The user for whom to retrieve purchases.
-     * @return A list of purchases made by the user.
+     * @return A list of {@link PurchaseView} of the purchases made by the user.
      */
-    List<Purchase> getPurchasesByUser(User user);
+    List<PurchaseView> getPurchasesByUser(User user);
 
     /**
      * Get a purchase by its ID and user.
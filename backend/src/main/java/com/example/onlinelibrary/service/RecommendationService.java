@@ -2,7 +2,6 @@ package com.example.onlinelibrary.service;
 
 import com.example.onlinelibrary.domain.book.Book;
 
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -11,11 +10,13 @@ import java.util.List;
 public interface RecommendationService {
 
     /**
-     * Recommend a list of books for a specific user, sorted using the given comparator.
+     * Recommend a list of books for a specific user: books co-purchased by readers of the user's books
+     * and books of the user's genres, ranked by a blend of co-purchase affinity and rating.
      *
-     * @param userId            The ID of the user for whom book recommendations are generated.
-     * @param sortingComparator The {@link Comparator<Book>} used to sort the recommended books.
-     * @return A list of recommended {@link Book} entities for the user.
+     * @param userId The ID of the user for whom book recommendations are generated.
+     * @param offset The number of best recommendations to skip.
+     * @param limit  The maximum number of recommendations to return.
+     * @return A list of at most {@code limit} recommended {@link Book} entities for the user, best first.
      */
-    List<Book> recommendBooksForUser(Long userId, Comparator<Book> sortingComparator);
+    List<Book> recommendBooksForUser(Long userId, int offset, int limit);
 }
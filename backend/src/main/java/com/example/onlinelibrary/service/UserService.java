@@ -39,6 +39,15 @@ public interface UserService {
      */
     User create(User user);
 
+    /**
+     * Replace the password hash of a user, unless it was changed since it was read.
+     *
+     * @param id          The ID of the user.
+     * @param currentHash The password hash the new one replaces.
+     * @param newHash     The new password hash.
+     */
+    void updatePasswordHash(Long id, String currentHash, String newHash);
+
     /**
      * Delete a user by their ID.
      *
@@ -0,0 +1,71 @@
+package com.example.onlinelibrary.service;
+
+import com.example.onlinelibrary.domain.user.UserSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service interface for the library summaries of the users.
+ * The record methods apply a change to the summary inside the transaction of the write that causes it,
+ * and must be called within that transaction.
+ */
+public interface UserSummaryService {
+
+    /**
+     * Get the summary of a user, building it from the libraries and purchases if it does not exist yet.
+     *
+     * @param userId The ID of the user.
+     * @return The {@link UserSummary} of the user.
+     */
+    UserSummary getSummary(Long userId);
+
+    /**
+     * Build and store the summary of a user from the libraries and purchases if it does not exist yet.
+     * Must be called outside of a transaction, before the first write that records a change to the summary.
+     *
+     * @param userId The ID of the user.
+     */
+    void ensureSummary(Long userId);
+
+    /**
+     * Record purchases of a user.
+     *
+     * @param userId       The ID of the user.
+     * @param genres       The genres of the purchased books, one per purchase; null for a book without genre.
+     * @param purchaseDate The date of the purchases.
+     */
+    void recordPurchases(Long userId, List<String> genres, LocalDateTime purchaseDate);
+
+    /**
+     * Record the change of the rating of a purchase.
+     *
+     * @param userId         The ID of the user who rated the purchase.
+     * @param previousRating The previous rating, 0 if the purchase was not rated.
+     * @param rating         The new rating, 0 to remove the rating.
+     */
+    void recordRating(Long userId, int previousRating, int rating);
+
+    /**
+     * Record a new book, added to the library of its creator and of every user with catalog access.
+     *
+     * @param userId The ID of the user who created the book.
+     */
+    void recordCreatedBook(Long userId);
+
+    /**
+     * Record the removal of a book from the libraries of all its owners and of every user with catalog access.
+     * Must be called before the associations of the book are deleted.
+     *
+     * @param bookId The ID of the book.
+     */
+    void recordRemovedBook(Long bookId);
+
+    /**
+     * Delete the summary of a user.
+     *
+     * @param userId The ID of the user.
+     */
+    void delete(Long userId);
+
+}
@@ -0,0 +1,176 @@
+package com.example.onlinelibrary.service.cache;
+
+import com.example.onlinelibrary.domain.book.Book;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Service layer cache of books by ID and of book-ID lists by genre.
+ * Backed by whatever {@link CacheManager} the cache mode selects, which caches nothing unless the mode is service.
+ * The cache holds detached snapshots without the lazy associations and hands out a fresh copy on every read,
+ * so a caller modifying a returned book never changes what other requests see.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookCache {
+
+    public static final String BOOKS = "books";
+    public static final String BOOK_IDS_BY_GENRE = "bookIdsByGenre";
+
+    private static final Logger logger = LoggerFactory.getLogger(BookCache.class);
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Returns a cached book, loading and caching it on a miss.
+     *
+     * @param id     The ID of the book.
+     * @param loader The function loading the book when it is not cached; may throw if the book does not exist.
+     * @return A {@link Book} owned by the caller.
+     */
+    public Book getBook(Long id, Function<Long, Book> loader) {
+        Cache books = cache(BOOKS);
+        Book book = books.get(id, Book.class);
+        if (book == null) {
+            book = loader.apply(id);
+            books.put(id, snapshot(book));
+            return book;
+        }
+        return snapshot(book);
+    }
+
+    /**
+     * Returns the cached books of the given IDs, loading all misses with a single call.
+     *
+     * @param ids    The IDs of the books.
+     * @param loader The function loading the books that are not cached.
+     * @return The books found, in the order of the IDs, each owned by the caller.
+     */
+    public List<Book> getBooks(Collection<Long> ids, Function<List<Long>, List<Book>> loader) {
+        Cache books = cache(BOOKS);
+        Map<Long, Book> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Book book = books.get(id, Book.class);
+            if (book != null) {
+                found.put(id, snapshot(book));
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            logger.debug("Loading {} of {} books missing from the cache", missing.size(), ids.size());
+            for (Book book : loader.apply(missing)) {
+                books.put(book.getId(), snapshot(book));
+                found.put(book.getId(), book);
+            }
+        }
+
+        List<Book> ordered = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            Book book = found.get(id);
+            if (book != null) {
+                ordered.add(book);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Returns the cached IDs of the books of a genre, loading and caching them on a miss.
+     *
+     * @param genre  The genre.
+     * @param loader The function loading the IDs when they are not cached.
+     * @return The IDs of the books of the genre.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> getBookIdsByGenre(String genre, Function<String, List<Long>> loader) {
+        Cache bookIdsByGenre = cache(BOOK_IDS_BY_GENRE);
+        List<Long> ids = bookIdsByGenre.get(genre, List.class);
+        if (ids == null) {
+            ids = List.copyOf(loader.apply(genre));
+            bookIdsByGenre.put(genre, ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Removes a book from the cache, so that the next lookup reloads it.
+     * Inside a transaction the book is evicted again after commit, dropping anything re-cached in between.
+     *
+     * @param id The ID of the book.
+     */
+    public void evictBook(Long id) {
+        logger.debug("Evicting cached book ID: {}", id);
+        evict(BOOKS, id);
+    }
+
+    /**
+     * Removes the cached book IDs of a genre, now and after the current transaction commits.
+     *
+     * @param genre The genre.
+     */
+    public void evictGenre(String genre) {
+        if (genre != null) {
+            evict(BOOK_IDS_BY_GENRE, genre);
+        }
+    }
+
+    private void evict(String name, Object key) {
+        Cache cache = cache(name);
+        cache.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the columns of a book into a new detached instance, leaving out the lazy associations.
+     *
+     * @param book The book to copy.
+     * @return The copy.
+     */
+    private static Book snapshot(Book book) {
+        Book copy = new Book();
+        copy.setId(book.getId());
+        copy.setTitle(book.getTitle());
+        copy.setAuthor(book.getAuthor());
+        copy.setGenre(book.getGenre());
+        copy.setDescription(book.getDescription());
+        copy.setIsbn(book.getIsbn());
+        copy.setImage(book.getImage());
+        copy.setPublished(book.getPublished());
+        copy.setPublisher(book.getPublisher());
+        copy.setRating(book.getRating());
+        copy.setRatingSum(book.getRatingSum());
+        copy.setRatingCount(book.getRatingCount());
+        copy.setPurchaseCount(book.getPurchaseCount());
+        return copy;
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+
+}
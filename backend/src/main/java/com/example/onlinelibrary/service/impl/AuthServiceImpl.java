@@ -1,5 +1,7 @@
 package com.example.onlinelibrary.service.impl;
 
+import com.example.onlinelibrary.config.MetricsConfig;
+import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
 import com.example.onlinelibrary.domain.user.Authority;
 import com.example.onlinelibrary.domain.user.User;
 import com.example.onlinelibrary.service.AuthService;
@@ -7,11 +9,16 @@ import com.example.onlinelibrary.service.UserService;
 import com.example.onlinelibrary.web.dto.auth.JwtRequestDto;
 import com.example.onlinelibrary.web.dto.auth.JwtResponseDto;
 import com.example.onlinelibrary.web.security.JwtTokenProvider;
+import com.example.onlinelibrary.web.security.JwtUserDetailsCreator;
+import com.example.onlinelibrary.web.security.PasswordVerifier;
+import com.example.onlinelibrary.web.security.RefreshTokenStore;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Service;
 
@@ -19,26 +26,31 @@ import java.util.Set;
 
 /**
  * Implementation of the AuthService interface for authentication and token management.
+ * Logins load the user once, for both the password check and the issued tokens, and verify the password on the
+ * bounded executor of the {@link PasswordVerifier}. Hashes of an outdated cost factor are replaced on login.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
 
-    private final AuthenticationManager authenticationManager;
+    private final AuthenticationEventPublisher authenticationEventPublisher;
+    private final PasswordVerifier passwordVerifier;
     private final UserService userService;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenStore refreshTokenStore;
 
     @Override
     public JwtResponseDto login(JwtRequestDto loginRequest) {
 
         logger.info("Processing login request for username: {}", loginRequest.getUsername());
 
+        User user = authenticate(loginRequest.getUsername(), loginRequest.getPassword());
+
         JwtResponseDto jwtResponseDto = new JwtResponseDto();
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
-        User user = userService.getByUsername(loginRequest.getUsername());
         Long userId = user.getId();
         String userEmail = user.getEmail();
         Set<Authority> userAuthorities = user.getAuthorities();
@@ -51,6 +63,39 @@ public class AuthServiceImpl implements AuthService {
         return jwtResponseDto;
     }
 
+    /**
+     * Checks the credentials of a login and publishes the outcome as the authentication manager would.
+     * Unknown usernames are rejected as bad credentials, after the same verification time as a wrong password.
+     *
+     * @param username The username of the login.
+     * @param password The password of the login.
+     * @return The authenticated {@link User}.
+     * @throws BadCredentialsException If the username is unknown or the password is wrong.
+     */
+    private User authenticate(String username, String password) {
+        User user;
+        try {
+            user = userService.getByUsername(username);
+        } catch (ResourceNotFoundException e) {
+            user = null;
+        }
+        String passwordHash = user != null ? user.getPassword() : null;
+        if (!passwordVerifier.matches(password, passwordHash)) {
+            BadCredentialsException failure = new BadCredentialsException("Bad credentials");
+            authenticationEventPublisher.publishAuthenticationFailure(failure,
+                    UsernamePasswordAuthenticationToken.unauthenticated(username, null));
+            throw failure;
+        }
+        if (passwordVerifier.needsRehash(passwordHash)) {
+            Long userId = user.getId();
+            passwordVerifier.rehash(password,
+                    newHash -> userService.updatePasswordHash(userId, passwordHash, newHash));
+        }
+        authenticationEventPublisher.publishAuthenticationSuccess(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, JwtUserDetailsCreator.create(user).getAuthorities()));
+        return user;
+    }
+
     @Override
     public JwtResponseDto refresh(String refreshToken) {
         logger.info("Processing token refresh request");
@@ -62,4 +107,11 @@ public class AuthServiceImpl implements AuthService {
         return refreshedTokens;
     }
 
+    @Override
+    public void logout(Long userId) {
+        logger.info("Processing logout request for user ID: {}", userId);
+
+        refreshTokenStore.revokeUser(userId);
+    }
+
 }
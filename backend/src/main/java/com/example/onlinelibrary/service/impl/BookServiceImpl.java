@@ -1,58 +1,190 @@
 package com.example.onlinelibrary.service.impl;
 
+import com.example.onlinelibrary.config.MetricsConfig;
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookCursor;
+import com.example.onlinelibrary.domain.book.BookSuggestion;
+import com.example.onlinelibrary.domain.enums.AuthorityName;
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
 import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.UserRepository;
+import com.example.onlinelibrary.repository.projection.BookView;
 import com.example.onlinelibrary.service.BookService;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.example.onlinelibrary.service.index.BookAutocompleteIndex;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.service.index.BookSearchIndex;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import com.example.onlinelibrary.service.transaction.AfterCommit;
+import com.example.onlinelibrary.service.writebehind.PurchaseWriteBehind;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the BookService interface for managing book-related operations.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 public class BookServiceImpl implements BookService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookServiceImpl.class);
 
+    // Number of streamed books after which the persistence context is cleared
+    private static final int STREAM_CLEAR_INTERVAL = 1000;
+
+    private final EntityManager entityManager;
     private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final GenreRecommendationIndex recommendationIndex;
+    private final BookOwnershipIndex ownershipIndex;
+    private final BookSearchIndex searchIndex;
+    private final BookAutocompleteIndex autocompleteIndex;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final BookCache bookCache;
+    private final UserSummaryService userSummaryService;
+    private final Optional<PurchaseWriteBehind> writeBehind;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional(readOnly = true)
     public Book getBookById(Long id) {
         logger.debug("Getting book by ID: {}", id);
-        return bookRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found."));
+        return bookCache.getBook(id, bookId -> bookRepository.findById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found.")));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Book> getAllBooks() {
+    public List<BookView> getAllBooks() {
         logger.debug("Getting all books");
-        return bookRepository.findAll();
+        return bookRepository.findAllViews();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookView> getBooksPage(BookCursor cursor, int size) {
+        logger.debug("Getting {} books after cursor {}/{}", size, cursor.getSort(), cursor.getLastId());
+        Pageable limit = PageRequest.ofSize(size);
+        return switch (cursor.getSort()) {
+            case ID -> bookRepository.findViewPageAfterId(cursor.getLastId(), limit);
+            case RATING -> bookRepository.findViewPageAfterRating(cursor.getLastRating(), cursor.getLastId(), limit);
+        };
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Book> getAllByUserId(Long userId) {
-        logger.debug("Getting all books for user with ID: {}", userId);
-        return bookRepository.findByUsers_Id(userId);
+    public List<Book> searchBooks(String query, int limit) {
+        logger.debug("Searching {} books matching: {}", limit, query);
+        return getBooksInOrder(searchIndex.search(query, limit));
+    }
+
+    @Override
+    public List<BookSuggestion> suggestBooks(String prefix, int limit) {
+        logger.debug("Suggesting {} books for prefix: {}", limit, prefix);
+        return autocompleteIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getBooksPageByUserId(Long userId, long afterId, int size) {
+        logger.debug("Getting {} books after ID {} for user with ID: {}", size, afterId, userId);
+        Pageable page = PageRequest.ofSize(size);
+        return getBooksInOrder(hasCatalogAccess(userId)
+                ? bookRepository.findIdPageAfterId(afterId, page)
+                : bookRepository.findBookIdPageByUserIdAfterId(userId, afterId, page));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllBooks(Consumer<Book> consumer) {
+        logger.debug("Streaming all books");
+        stream(bookRepository.streamAll(), consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBooksByUserId(Long userId, Consumer<Book> consumer) {
+        logger.debug("Streaming all books for user with ID: {}", userId);
+        Stream<Book> books = hasCatalogAccess(userId) ? bookRepository.streamAll() : bookRepository.streamByUserId(userId);
+        stream(books, consumer);
+    }
+
+    /**
+     * Check whether a user accesses every book through a {@link AuthorityName#CATALOG_ACCESS} role,
+     * from the ownership index once it is built.
+     *
+     * @param userId The ID of the user.
+     * @return True if the user has catalog access, false otherwise.
+     */
+    private boolean hasCatalogAccess(Long userId) {
+        return ownershipIndex.isReady()
+                ? ownershipIndex.hasCatalogAccess(userId)
+                : userRepository.existsByIdAndAuthorities_NameIn(userId, AuthorityName.CATALOG_ACCESS);
+    }
+
+    private void stream(Stream<Book> books, Consumer<Book> consumer) {
+        try (books) {
+            Iterator<Book> iterator = books.iterator();
+            int streamed = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++streamed % STREAM_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+            logger.debug("Streamed {} books", streamed);
+        }
     }
 
     @Override
     @Transactional
     public Book update(Book book) {
         logger.debug("Updating book with ID: {}", book.getId());
-        bookRepository.save(book);
-        return book;
+        Book existingBook = bookRepository.findById(book.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found."));
+        String previousGenre = existingBook.getGenre();
+        // Copy the editable fields only, rating aggregates are maintained by purchases
+        existingBook.setTitle(book.getTitle());
+        existingBook.setAuthor(book.getAuthor());
+        existingBook.setGenre(book.getGenre());
+        existingBook.setDescription(book.getDescription());
+        existingBook.setIsbn(book.getIsbn());
+        existingBook.setImage(book.getImage());
+        existingBook.setPublished(book.getPublished());
+        existingBook.setPublisher(book.getPublisher());
+        bookRepository.save(existingBook);
+        bookCache.evictBook(existingBook.getId());
+        bookCache.evictGenre(previousGenre);
+        bookCache.evictGenre(existingBook.getGenre());
+        AfterCommit.run(() -> {
+            recommendationIndex.putBook(existingBook.getId(), existingBook.getGenre(), existingBook.getRating());
+            searchIndex.putBook(existingBook);
+            autocompleteIndex.putBook(existingBook);
+        });
+        return existingBook;
     }
 
     @Override
@@ -60,21 +192,74 @@ public class BookServiceImpl implements BookService {
     public Book create(Book book, Long userId) {
         logger.debug("Creating book with ID: {} and associating with user ID: {}", book.getId(), userId);
         bookRepository.save(book);
-        bookRepository.assignBookToUser(userId, book.getId());
+        boolean owned = !hasCatalogAccess(userId);
+        if (owned) {
+            bookRepository.assignBookToUser(userId, book.getId());
+        }
+        userSummaryService.recordCreatedBook(userId);
+        bookCache.evictGenre(book.getGenre());
+        AfterCommit.run(() -> {
+            if (owned) {
+                ownershipIndex.add(userId, book.getId());
+            }
+            recommendationIndex.putBook(book.getId(), book.getGenre(), book.getRating());
+            searchIndex.putBook(book);
+            autocompleteIndex.putBook(book);
+        });
         return book;
     }
 
     @Override
-    @Transactional
     public void delete(Long id) {
         logger.debug("Deleting book with ID: {}", id);
-        bookRepository.deleteById(id);
+        // Store the book's pending purchases before the transaction, so none is left referencing a deleted book
+        writeBehind.ifPresent(pipeline -> pipeline.awaitStoredOfBook(id));
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.findById(id).ifPresent(book -> bookCache.evictGenre(book.getGenre()));
+            userSummaryService.recordRemovedBook(id);
+            bookRepository.deleteById(id);
+            bookCache.evictBook(id);
+            AfterCommit.run(() -> {
+                recommendationIndex.removeBook(id);
+                ownershipIndex.removeBook(id);
+                searchIndex.removeBook(id);
+                autocompleteIndex.removeBook(id);
+                coPurchaseIndex.removeBook(id);
+            });
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> getBooksByGenre(String genre) {
         logger.debug("Getting books by genre: {}", genre);
-        return bookRepository.findByGenre(genre);
+        return getBooksInOrder(bookCache.getBookIdsByGenre(genre, bookRepository::findIdsByGenre));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getBooksByIds(Collection<Long> ids) {
+        logger.debug("Getting {} books by ID", ids.size());
+        return getBooksInOrder(ids);
+    }
+
+    /**
+     * Get books by their IDs from the cache, loading all misses in one round-trip.
+     * Misses are loaded through the session, which also consults the Hibernate second-level cache when enabled.
+     *
+     * @param ids The IDs of the books to retrieve.
+     * @return A list of the {@link Book} entities found, in the order of the IDs.
+     */
+    private List<Book> getBooksInOrder(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return bookCache.getBooks(ids, missing -> entityManager.unwrap(Session.class)
+                .byMultipleIds(Book.class)
+                .multiLoad(missing)
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
 
 }
@@ -1,33 +1,73 @@
 package com.example.onlinelibrary.service.impl;
 
+import com.example.onlinelibrary.config.MetricsConfig;
 import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
 import com.example.onlinelibrary.domain.purchase.Purchase;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.BookRepository;
 import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.CartBookView;
+import com.example.onlinelibrary.repository.projection.PurchaseRatingView;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
 import com.example.onlinelibrary.service.PurchaseService;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import com.example.onlinelibrary.service.index.BookAutocompleteIndex;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import com.example.onlinelibrary.service.transaction.AfterCommit;
+import com.example.onlinelibrary.service.writebehind.PurchaseWriteBehind;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service class for managing purchase-related operations.
+ * When the {@link PurchaseWriteBehind} pipeline is enabled, new purchases are stored by it in the background,
+ * and reads include the purchases it has acknowledged but not stored yet.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 public class PurchaseServiceImpl implements PurchaseService {
 
     private static final Logger logger = LoggerFactory.getLogger(PurchaseServiceImpl.class);
 
+    private static final String INSERT_PURCHASES = "INSERT INTO purchase (user_id, book_id, purchase_date, rating) VALUES ";
+    private static final String PURCHASE_ROW = "(?, ?, ?, 0)";
+
     private final PurchaseRepository purchaseRepository;
+    private final BookRepository bookRepository;
+    private final GenreRecommendationIndex recommendationIndex;
+    private final BookAutocompleteIndex autocompleteIndex;
+    private final CoPurchaseIndex coPurchaseIndex;
+    private final BookCache bookCache;
+    private final UserSummaryService userSummaryService;
+    private final Optional<PurchaseWriteBehind> writeBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * Get purchases associated with a specific user.
@@ -42,6 +82,7 @@ public class PurchaseServiceImpl implements PurchaseService {
 
     /**
      * Create a purchase record for a user buying a book.
+     * With write-behind enabled the purchase is only logged here and inserted later with its batch.
      *
      * @param user The user making the purchase.
      * @param book The book being purchased.
@@ -51,13 +92,30 @@ public class PurchaseServiceImpl implements PurchaseService {
 
         logger.debug("Creating purchase record for User ID: {} and Book ID: {}", user.getId(), book.getId());
 
-        Purchase purchase = new Purchase();
-        purchase.setUser(user);
-        purchase.setBook(book);
-        purchase.setPurchaseDate(LocalDateTime.now());
+        Purchase savedPurchase;
+        if (writeBehind.isPresent()) {
+            savedPurchase = writeBehind.get().append(user, book);
+        } else {
+            userSummaryService.ensureSummary(user.getId());
+            savedPurchase = transactionTemplate.execute(status -> {
+                Purchase purchase = new Purchase();
+                purchase.setUser(user);
+                purchase.setBook(book);
+                purchase.setPurchaseDate(LocalDateTime.now());
 
-        // Save the purchase record
-        Purchase savedPurchase = purchaseRepository.save(purchase);
+                // Save the purchase record
+                Purchase saved = purchaseRepository.save(purchase);
+                bookRepository.incrementPurchaseCount(book.getId());
+                userSummaryService.recordPurchases(user.getId(), Collections.singletonList(book.getGenre()),
+                        saved.getPurchaseDate());
+                bookCache.evictBook(book.getId());
+                indexPurchases(user.getId(), Collections.singletonList(saved));
+                return saved;
+            });
+        }
+        if (writeBehind.isPresent()) {
+            indexPurchases(user.getId(), Collections.singletonList(savedPurchase));
+        }
 
         // Logging the purchase event
         logger.info("Purchase recorded for User ID: {}, Book ID: {}", user.getId(), book.getId());
@@ -65,22 +123,164 @@ public class PurchaseServiceImpl implements PurchaseService {
         return savedPurchase;
     }
 
+    /**
+     * Create the purchase records of a user buying several books at once.
+     * The books are loaded with one query, together with whether the user has purchased them already,
+     * and checked in memory; a cart with a book already purchased is rejected as a whole. The purchases are then inserted with one
+     * multi-row statement returning their IDs, and the purchase counts incremented with one update, in a single
+     * transaction; with write-behind enabled they are logged with a single sync instead.
+     *
+     * @param user    The user making the purchases.
+     * @param bookIds The IDs of the books being purchased, without duplicates.
+     * @return The created {@link Purchase} entities, in the order of the book IDs.
+     */
+    @Override
+    public List<Purchase> checkout(User user, List<Long> bookIds) {
+        logger.debug("Checking out {} books for User ID: {}", bookIds.size(), user.getId());
+
+        if (new HashSet<>(bookIds).size() != bookIds.size()) {
+            throw new IllegalStateException("Cart contains the same book more than once.");
+        }
+        Map<Long, CartBookView> cartById = new HashMap<>();
+        for (CartBookView view : bookRepository.findCartViews(user.getId(), bookIds)) {
+            cartById.put(view.getBook().getId(), view);
+        }
+        Set<Long> pendingBookIds = new HashSet<>();
+        writeBehind.ifPresent(pipeline -> pipeline.getPendingPurchases(user.getId())
+                .forEach(purchase -> pendingBookIds.add(purchase.getBookId())));
+        List<Book> books = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            CartBookView view = cartById.get(bookId);
+            if (view == null) {
+                logger.warn("Book with ID {} in cart not found", bookId);
+                throw new ResourceNotFoundException("Book not found.");
+            }
+            if (view.isPurchased() || pendingBookIds.contains(bookId)) {
+                logger.warn("Book with ID {} in cart already purchased by User ID: {}", bookId, user.getId());
+                throw new IllegalStateException("Cart contains a book already purchased.");
+            }
+            books.add(view.getBook());
+        }
+
+        List<Purchase> purchases;
+        if (writeBehind.isPresent()) {
+            purchases = writeBehind.get().appendAll(user, books);
+        } else {
+            userSummaryService.ensureSummary(user.getId());
+            purchases = transactionTemplate.execute(status -> {
+                LocalDateTime purchaseDate = LocalDateTime.now();
+                List<Purchase> inserted = insertPurchases(user, books, purchaseDate);
+                bookRepository.incrementPurchaseCounts(bookIds);
+                List<String> genres = new ArrayList<>(books.size());
+                for (Book book : books) {
+                    genres.add(book.getGenre());
+                }
+                userSummaryService.recordPurchases(user.getId(), genres, purchaseDate);
+                indexPurchases(user.getId(), inserted);
+                return inserted;
+            });
+            bookIds.forEach(bookCache::evictBook);
+        }
+        if (writeBehind.isPresent()) {
+            indexPurchases(user.getId(), purchases);
+        }
+
+        logger.info("Checkout recorded for User ID: {}, {} books", user.getId(), purchases.size());
+
+        return purchases;
+    }
+
+    /**
+     * Record purchases in the in-memory indexes once the transaction storing them commits.
+     * Purchases logged by the write-behind pipeline are durable already and are recorded at once.
+     *
+     * @param userId    The ID of the buying user.
+     * @param purchases The purchases of the user.
+     */
+    private void indexPurchases(Long userId, List<Purchase> purchases) {
+        AfterCommit.run(() -> {
+            for (Purchase purchase : purchases) {
+                Long bookId = purchase.getBook().getId();
+                recommendationIndex.recordPurchase(userId, bookId);
+                autocompleteIndex.recordPurchase(bookId);
+                coPurchaseIndex.recordPurchase(purchase.getId(), userId, bookId);
+            }
+        });
+    }
+
+    /**
+     * Insert the purchases of a user with a single multi-row statement.
+     *
+     * @param user         The user making the purchases.
+     * @param books        The books being purchased.
+     * @param purchaseDate The date of the purchases.
+     * @return The inserted {@link Purchase} entities, with the IDs generated by the database.
+     */
+    private List<Purchase> insertPurchases(User user, List<Book> books, LocalDateTime purchaseDate) {
+        String sql = INSERT_PURCHASES + String.join(", ", Collections.nCopies(books.size(), PURCHASE_ROW));
+        Timestamp timestamp = Timestamp.valueOf(purchaseDate);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"});
+            int parameter = 1;
+            for (Book book : books) {
+                statement.setLong(parameter++, user.getId());
+                statement.setLong(parameter++, book.getId());
+                statement.setTimestamp(parameter++, timestamp);
+            }
+            return statement;
+        }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != books.size()) {
+            throw new IllegalStateException("Expected " + books.size() + " generated purchase IDs, got " + keys.size());
+        }
+        List<Purchase> purchases = new ArrayList<>(books.size());
+        for (int index = 0; index < books.size(); index++) {
+            long id = ((Number) keys.get(index).values().iterator().next()).longValue();
+            purchases.add(new Purchase(id, user, books.get(index), purchaseDate, 0));
+        }
+        return purchases;
+    }
+
     /**
      * Get purchases associated with a specific user.
      *
      * @param user The user whose associated purchases will be retrieved.
-     * @return A list of {@link Purchase} entities associated with the user.
+     * @return A list of {@link PurchaseView} projections of the purchases of the user.
      */
     @Override
-    public List<Purchase> getPurchasesByUser(User user) {
+    public List<PurchaseView> getPurchasesByUser(User user) {
         logger.debug("Getting purchases for user with ID: {}", user.getId());
-        return purchaseRepository.findByUser(user);
+        if (writeBehind.isEmpty()) {
+            return purchaseRepository.findViewsByUserId(user.getId());
+        }
+
+        // Read the pending purchases first: one stored in between is then found by the query instead of lost
+        List<PurchaseView> pending = writeBehind.get().getPendingPurchases(user.getId());
+        List<PurchaseView> purchases = purchaseRepository.findViewsByUserId(user.getId());
+        if (pending.isEmpty()) {
+            return purchases;
+        }
+        Set<Long> storedIds = new HashSet<>();
+        for (PurchaseView purchase : purchases) {
+            storedIds.add(purchase.getId());
+        }
+        List<PurchaseView> merged = new ArrayList<>(purchases);
+        for (PurchaseView purchase : pending) {
+            if (!storedIds.contains(purchase.getId())) {
+                merged.add(purchase);
+            }
+        }
+        return merged;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Purchase getPurchaseByIdAndUser(Long purchaseId, User user) {
-        Optional<Purchase> purchaseOptional = purchaseRepository.findByIdAndUser(purchaseId, user);
+        Optional<Purchase> purchaseOptional = writeBehind
+                .flatMap(pipeline -> pipeline.getPendingPurchase(purchaseId, user))
+                .or(() -> purchaseRepository.findByIdAndUser(purchaseId, user));
 
         if (purchaseOptional.isPresent()) {
             Purchase purchase = purchaseOptional.get();
@@ -94,15 +294,38 @@ public class PurchaseServiceImpl implements PurchaseService {
 
     /**
      * Rate a purchase.
+     * The book's rating sum and count are adjusted by the difference with the previous rating,
+     * so re-rating a purchase replaces its earlier rating instead of adding a new one.
+     * A purchase still pending in the write-behind pipeline is awaited before the transaction starts,
+     * so the wait never holds a database connection.
      *
      * @param purchaseId The ID of the purchase to rate.
      * @param rating     The rating to assign to the purchase.
      */
     public void ratePurchase(Long purchaseId, int rating) {
-        Optional<Purchase> purchaseOptional = purchaseRepository.findById(purchaseId);
-        purchaseOptional.ifPresent(purchase -> {
-            purchase.setRating(rating);
-            purchaseRepository.save(purchase);
+        writeBehind.ifPresent(pipeline -> pipeline.awaitStored(purchaseId));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Lock the purchase so that concurrent re-ratings see each other's previous rating
+            Optional<PurchaseRatingView> current = purchaseRepository.findRatingViewByIdForUpdate(purchaseId);
+            if (current.isEmpty()) {
+                return;
+            }
+
+            Long bookId = current.get().getBookId();
+            int previousRating = current.get().getRating();
+            purchaseRepository.updateRating(purchaseId, rating);
+            int countDelta = (rating != 0 ? 1 : 0) - (previousRating != 0 ? 1 : 0);
+            bookRepository.applyRatingChange(bookId, rating - previousRating, countDelta);
+            userSummaryService.recordRating(current.get().getUserId(), previousRating, rating);
+            bookCache.evictBook(bookId);
+            double updatedRating = bookRepository.findRatingById(bookId);
+            AfterCommit.run(() -> {
+                recommendationIndex.updateRating(bookId, updatedRating);
+                autocompleteIndex.updateRating(bookId, updatedRating);
+            });
+
+            logger.debug("Purchase ID: {} rated {} (previously {})", purchaseId, rating, previousRating);
         });
     }
 }
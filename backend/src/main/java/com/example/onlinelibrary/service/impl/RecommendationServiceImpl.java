@@ -1,57 +1,121 @@
 package com.example.onlinelibrary.service.impl;
 
+import com.example.onlinelibrary.config.MetricsConfig;
+import com.example.onlinelibrary.config.props.RecommendationProperties;
 import com.example.onlinelibrary.domain.book.Book;
-import com.example.onlinelibrary.domain.purchase.Purchase;
 import com.example.onlinelibrary.service.BookService;
 import com.example.onlinelibrary.service.RecommendationService;
+import com.example.onlinelibrary.service.index.CoPurchaseIndex;
+import com.example.onlinelibrary.service.index.GenreRecommendationIndex;
+import io.micrometer.core.annotation.Timed;
+import it.unimi.dsi.fastutil.longs.AbstractLong2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.PriorityQueue;
 
 /**
  * Implementation of the RecommendationService interface for recommending books to users.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @Slf4j
 public class RecommendationServiceImpl implements RecommendationService {
 
     private static final Logger logger = LoggerFactory.getLogger(RecommendationServiceImpl.class);
 
-    private final PurchaseServiceImpl purchaseService;
+    private static final double MAX_RATING = 5.0;
+
+    private final GenreRecommendationIndex recommendationIndex;
+
+    private final CoPurchaseIndex coPurchaseIndex;
+
+    private final RecommendationProperties recommendationProperties;
 
     private final BookService bookService;
 
     @Override
-    public List<Book> recommendBooksForUser(Long userId, Comparator<Book> sortingComparator) {
-        List<Purchase> userPurchases = purchaseService.getPurchasesByUserId(userId);
-        Set<String> userGenres = userPurchases.stream()
-                .map(purchase -> bookService.getBookById(purchase.getBook().getId()))
-                .map(Book::getGenre)
-                .collect(Collectors.toSet());
-
-        List<Book> recommendedBooks = new ArrayList<>();
-        for (String genre : userGenres) {
-            List<Book> booksInGenre = bookService.getBooksByGenre(genre);
-            recommendedBooks.addAll(booksInGenre);
+    public List<Book> recommendBooksForUser(Long userId, int offset, int limit) {
+        int wanted = offset + limit;
+        Long2DoubleMap affinities = coPurchaseIndex.affinities(userId);
+        double maxAffinity = 0;
+        for (double affinity : affinities.values()) {
+            maxAffinity = Math.max(maxAffinity, affinity);
         }
 
-        recommendedBooks.removeIf(book -> userPurchases.stream()
-                .anyMatch(purchase -> purchase.getBook().getId().equals(book.getId())));
+        // Blend the normalized co-purchase affinity with the normalized rating
+        Long2DoubleMap scores = new Long2DoubleOpenHashMap(affinities.size());
+        for (Long2DoubleMap.Entry entry : affinities.long2DoubleEntrySet()) {
+            scores.put(entry.getLongKey(), score(entry.getLongKey(), entry.getDoubleValue() / maxAffinity));
+        }
+        // Genre candidates only score by rating, so the best rated of each genre are enough
+        for (Long bookId : recommendationIndex.recommend(userId, wanted)) {
+            if (!scores.containsKey(bookId.longValue())) {
+                scores.put(bookId.longValue(), score(bookId, 0));
+            }
+        }
 
-        recommendedBooks.sort(sortingComparator);
+        List<Long> page = selectTop(scores, offset, limit);
+        List<Book> recommendedBooks = bookService.getBooksByIds(page);
 
-        logger.info("Recommended books for User ID {}: {}", userId, recommendedBooks);
+        logger.info("Recommended {} books for User ID {} ({} candidates, {} co-purchase)",
+                recommendedBooks.size(), userId, scores.size(), affinities.size());
 
         return recommendedBooks;
     }
 
+    /**
+     * Selects a page of the best scored books with a bounded min-heap, without sorting every candidate.
+     *
+     * @param scores The score of each candidate book.
+     * @param offset The number of best books to skip.
+     * @param limit  The maximum number of books to return.
+     * @return The IDs of the books of the page, best first.
+     */
+    private static List<Long> selectTop(Long2DoubleMap scores, int offset, int limit) {
+        int wanted = offset + limit;
+        // Weakest candidate on top, ties broken in favor of the lower book ID
+        Comparator<Long2DoubleMap.Entry> weakestFirst = Comparator
+                .comparingDouble(Long2DoubleMap.Entry::getDoubleValue)
+                .thenComparing(Long2DoubleMap.Entry::getLongKey, Comparator.reverseOrder());
+        PriorityQueue<Long2DoubleMap.Entry> best = new PriorityQueue<>(wanted + 1, weakestFirst);
+        for (Long2DoubleMap.Entry entry : scores.long2DoubleEntrySet()) {
+            if (best.size() < wanted) {
+                best.offer(new AbstractLong2DoubleMap.BasicEntry(entry.getLongKey(), entry.getDoubleValue()));
+            } else if (weakestFirst.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.offer(new AbstractLong2DoubleMap.BasicEntry(entry.getLongKey(), entry.getDoubleValue()));
+            }
+        }
+
+        // The weakest entries of the heap are the requested page, the best ones are skipped by the offset
+        int pageSize = Math.max(best.size() - offset, 0);
+        Long[] page = new Long[pageSize];
+        for (int i = pageSize - 1; i >= 0; i--) {
+            page[i] = best.poll().getLongKey();
+        }
+        return Arrays.asList(page);
+    }
+
+    /**
+     * Blended score of a candidate book.
+     *
+     * @param bookId   The ID of the book.
+     * @param affinity The co-purchase affinity of the book, normalized to [0, 1].
+     * @return The score of the book, higher is better.
+     */
+    private double score(long bookId, double affinity) {
+        return recommendationProperties.getCoPurchaseWeight() * affinity
+                + recommendationProperties.getRatingWeight() * recommendationIndex.ratingOf(bookId) / MAX_RATING;
+    }
+
 }
@@ -1,11 +1,18 @@
 package com.example.onlinelibrary.service.impl;
 
+import com.example.onlinelibrary.domain.enums.AuthorityName;
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
 import com.example.onlinelibrary.domain.user.Authority;
 import com.example.onlinelibrary.domain.user.User;
 import com.example.onlinelibrary.repository.AuthorityRepository;
 import com.example.onlinelibrary.repository.UserRepository;
 import com.example.onlinelibrary.service.UserService;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.index.BookOwnershipIndex;
+import com.example.onlinelibrary.service.transaction.AfterCommit;
+import com.example.onlinelibrary.service.writebehind.PurchaseWriteBehind;
+import com.example.onlinelibrary.web.security.JwtPrincipalCache;
+import com.example.onlinelibrary.web.security.RefreshTokenStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -13,6 +20,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashSet;
 import java.util.Optional;
@@ -33,6 +41,12 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final AuthorityRepository authorityRepository;
     private final PasswordEncoder passwordEncoder;
+    private final JwtPrincipalCache principalCache;
+    private final BookOwnershipIndex ownershipIndex;
+    private final RefreshTokenStore refreshTokenStore;
+    private final UserSummaryService userSummaryService;
+    private final Optional<PurchaseWriteBehind> writeBehind;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional(readOnly = true)
@@ -65,12 +79,30 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         User updatedUser = userRepository.save(user);
+        Long id = updatedUser.getId();
+        principalCache.invalidate(id);
+        refreshTokenStore.revokeUser(id);
+        // The update may grant or drop a catalog access role
+        boolean catalogAccess = userRepository.existsByIdAndAuthorities_NameIn(id, AuthorityName.CATALOG_ACCESS);
+        AfterCommit.run(() -> ownershipIndex.updateCatalogAccess(id, catalogAccess));
 
-        logger.info("Updated user with ID {}", updatedUser.getId());
+        logger.info("Updated user with ID {}", id);
 
         return updatedUser;
     }
 
+    @Override
+    @Transactional
+    public void updatePasswordHash(Long id, String currentHash, String newHash) {
+        if (userRepository.updatePasswordHash(id, currentHash, newHash) == 0) {
+            logger.debug("Password hash of user with ID {} changed meanwhile, not replaced", id);
+            return;
+        }
+        principalCache.invalidate(id);
+
+        logger.info("Rehashed password of user with ID {}", id);
+    }
+
     @Override
     @Transactional
     public User create(User user) {
@@ -96,20 +128,28 @@ public class UserServiceImpl implements UserService {
 
 
     @Override
-    @Transactional
     public void delete(Long id) {
-        userRepository.deleteById(id);
+        // Store the user's pending purchases before the transaction, so none is left referencing a deleted user
+        writeBehind.ifPresent(pipeline -> pipeline.awaitStoredOfUser(id));
+        transactionTemplate.executeWithoutResult(status -> {
+            userSummaryService.delete(id);
+            userRepository.deleteById(id);
+            principalCache.invalidate(id);
+            refreshTokenStore.revokeUser(id);
+            AfterCommit.run(() -> ownershipIndex.removeUser(id));
+        });
         logger.info("Deleted user with ID: {}", id);
     }
 
 
     @Override
-    @Transactional(readOnly = true)
     public boolean isBookAssignToUser(Long userId, Long bookId) {
         logger.debug("Checking if book with ID {} is assigned to user with ID {}", bookId, userId);
 
-        Optional<User> userByIdAndBooksId = userRepository.findByIdAndBooks_Id(userId, bookId);
-        boolean isAssigned = userByIdAndBooksId.isPresent();
+        // Only the fallback query opens a (read-only repository) transaction, the index check needs none
+        boolean isAssigned = ownershipIndex.isReady()
+                ? ownershipIndex.isOwned(userId, bookId)
+                : userRepository.existsByIdAndBooks_Id(userId, bookId);
 
         if (isAssigned) {
             logger.debug("Book with ID {} is assigned to user with ID {}", bookId, userId);
@@ -0,0 +1,159 @@
+package com.example.onlinelibrary.service.impl;
+
+import com.example.onlinelibrary.config.MetricsConfig;
+import com.example.onlinelibrary.domain.enums.AuthorityName;
+import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
+import com.example.onlinelibrary.domain.user.UserSummary;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.UserRepository;
+import com.example.onlinelibrary.repository.UserSummaryRepository;
+import com.example.onlinelibrary.repository.projection.PurchaseGenreView;
+import com.example.onlinelibrary.service.UserSummaryService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the UserSummaryService interface.
+ * A summary row is built once from the libraries and purchases, then kept up to date by the writes:
+ * each one locks the row of the user in its own transaction and applies its change, so the summary commits
+ * or rolls back with the write. Writes of a user without a summary row leave it to be built on first read.
+ */
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@RequiredArgsConstructor
+@Slf4j
+public class UserSummaryServiceImpl implements UserSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSummaryServiceImpl.class);
+
+    // Distinct genres counted per user, bounding the size of the genre counts column
+    private static final int MAX_GENRES = 64;
+
+    private final UserSummaryRepository userSummaryRepository;
+    private final UserRepository userRepository;
+    private final PurchaseRepository purchaseRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public UserSummary getSummary(Long userId) {
+        logger.debug("Getting summary of user with ID: {}", userId);
+        return userSummaryRepository.findById(userId).orElseGet(() -> {
+            ensureSummary(userId);
+            return userSummaryRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found."));
+        });
+    }
+
+    @Override
+    public void ensureSummary(Long userId) {
+        if (userSummaryRepository.existsById(userId)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> userSummaryRepository.saveAndFlush(buildSummary(userId)));
+            logger.debug("Built summary of user with ID: {}", userId);
+        } catch (DataIntegrityViolationException e) {
+            // Built by a concurrent request from the same committed rows
+            logger.debug("Summary of user with ID {} built concurrently", userId);
+        }
+    }
+
+    /**
+     * Build the summary of a user from the user_books associations and the purchases.
+     * The library of a user with catalog access is the whole catalog.
+     *
+     * @param userId The ID of the user.
+     * @return The new {@link UserSummary}.
+     * @throws ResourceNotFoundException If the user does not exist.
+     */
+    private UserSummary buildSummary(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found.");
+        }
+        UserSummary summary = new UserSummary();
+        summary.setUserId(userId);
+        boolean catalogAccess = userRepository.existsByIdAndAuthorities_NameIn(userId, AuthorityName.CATALOG_ACCESS);
+        summary.setOwnedBooks((int) (catalogAccess ? bookRepository.count() : userRepository.countBooksById(userId)));
+        Map<String, Integer> genreCounts = new HashMap<>();
+        for (PurchaseGenreView genre : purchaseRepository.findGenreViewsByUserId(userId)) {
+            summary.setPurchasedBooks(summary.getPurchasedBooks() + (int) genre.getPurchases());
+            summary.setRatingSum(summary.getRatingSum() + genre.getRatingSum());
+            summary.setRatingCount(summary.getRatingCount() + (int) genre.getRatingCount());
+            addGenre(genreCounts, genre.getGenre(), (int) genre.getPurchases());
+            if (summary.getLastPurchaseDate() == null || genre.getLastPurchaseDate().isAfter(summary.getLastPurchaseDate())) {
+                summary.setLastPurchaseDate(genre.getLastPurchaseDate());
+            }
+        }
+        summary.setGenreCounts(genreCounts);
+        return summary;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPurchases(Long userId, List<String> genres, LocalDateTime purchaseDate) {
+        userSummaryRepository.findByIdForUpdate(userId).ifPresent(summary -> {
+            // A new map marks the converted column dirty
+            Map<String, Integer> genreCounts = new HashMap<>(summary.getGenreCounts());
+            for (String genre : genres) {
+                addGenre(genreCounts, genre, 1);
+            }
+            summary.setGenreCounts(genreCounts);
+            summary.setPurchasedBooks(summary.getPurchasedBooks() + genres.size());
+            if (summary.getLastPurchaseDate() == null || purchaseDate.isAfter(summary.getLastPurchaseDate())) {
+                summary.setLastPurchaseDate(purchaseDate);
+            }
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRating(Long userId, int previousRating, int rating) {
+        userSummaryRepository.findByIdForUpdate(userId).ifPresent(summary -> {
+            summary.setRatingSum(summary.getRatingSum() + rating - previousRating);
+            summary.setRatingCount(summary.getRatingCount() + (rating != 0 ? 1 : 0) - (previousRating != 0 ? 1 : 0));
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreatedBook(Long userId) {
+        int updated = userSummaryRepository.incrementOwnedBooks(userId, AuthorityName.CATALOG_ACCESS_NAMES);
+        logger.debug("Added book of user with ID {} to {} user summaries", userId, updated);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemovedBook(Long bookId) {
+        int updated = userSummaryRepository.decrementOwnedBooksOfOwners(bookId, AuthorityName.CATALOG_ACCESS_NAMES);
+        logger.debug("Removed book with ID {} from {} user summaries", bookId, updated);
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long userId) {
+        userSummaryRepository.deleteById(userId);
+    }
+
+    private static void addGenre(Map<String, Integer> genreCounts, String genre, int purchases) {
+        if (genre == null || (genreCounts.size() >= MAX_GENRES && !genreCounts.containsKey(genre))) {
+            return;
+        }
+        genreCounts.merge(genre, purchases, Integer::sum);
+    }
+
+}
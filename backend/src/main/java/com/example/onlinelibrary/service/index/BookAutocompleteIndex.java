@@ -0,0 +1,576 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookSuggestion;
+import com.example.onlinelibrary.domain.book.BookSuggestionType;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.projection.BookSuggestionView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory radix trie serving title and author autocomplete.
+ * Every node caches the ten best weighted suggestions of its subtree, so a lookup only walks
+ * the typed prefix. A suggestion is weighted by the best of its books' rating plus ln(1 + purchases),
+ * and the cached lists along its paths are refreshed whenever a book, rating or purchase changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookAutocompleteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookAutocompleteIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final List<String> LEADING_ARTICLES = List.of("the ", "a ", "an ");
+
+    private static final Comparator<Suggestion> BY_WEIGHT_DESC = Comparator
+            .comparingDouble((Suggestion suggestion) -> suggestion.weight).reversed()
+            .thenComparing(suggestion -> suggestion.text);
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Trie trie = new Trie();
+    /**
+     * Changes made while a rebuild reads the books table, replayed onto the rebuilt trie before it
+     * replaces the current one. Null when no rebuild runs. Guarded by the index lock.
+     */
+    private List<Consumer<Trie>> pendingChanges;
+
+    /**
+     * Rebuilds the trie from the books table once the application (and its data import) is ready.
+     * Changes made while the table is read are applied to both tries, so none is lost with the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        logger.info("Building book autocomplete index...");
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Trie rebuilt = new Trie();
+        boolean read = false;
+        try (Stream<BookSuggestionView> books = bookRepository.streamAllSuggestionViews()) {
+            Iterator<BookSuggestionView> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                BookSuggestionView book = iterator.next();
+                rebuilt.putBook(book.getId(), new BookEntry(book.getTitle(), book.getAuthor(),
+                        book.getRating(), book.getPurchaseCount()), false);
+            }
+            // Cached lists are computed once for the whole trie instead of after every insert
+            rebuilt.root.refreshSubtree();
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed rebuild keeps the current trie, which already has every change
+                if (read) {
+                    pendingChanges.forEach(change -> change.accept(rebuilt));
+                    trie = rebuilt;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("Book autocomplete index built: {} books, {} suggestions in {} ms",
+                rebuilt.books.size(), rebuilt.suggestions.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds a book to the trie or replaces its title and author.
+     *
+     * @param book The book to index.
+     */
+    public void putBook(Book book) {
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        double rating = book.getRating();
+        int purchaseCount = book.getPurchaseCount();
+        // Each trie gets its own entry, since ratings and purchases update entries in place
+        apply(target -> target.putBook(bookId, new BookEntry(title, author, rating, purchaseCount), true));
+    }
+
+    /**
+     * Updates the rating of an indexed book.
+     *
+     * @param bookId The ID of the book.
+     * @param rating The new rating of the book.
+     */
+    public void updateRating(Long bookId, double rating) {
+        apply(target -> {
+            BookEntry entry = target.books.get(bookId);
+            if (entry != null) {
+                entry.rating = rating;
+                target.reweigh(bookId, entry);
+            }
+        });
+    }
+
+    /**
+     * Records a purchase of an indexed book.
+     *
+     * @param bookId The ID of the bought book.
+     */
+    public void recordPurchase(Long bookId) {
+        apply(target -> {
+            BookEntry entry = target.books.get(bookId);
+            if (entry != null) {
+                entry.purchaseCount++;
+                target.reweigh(bookId, entry);
+            }
+        });
+    }
+
+    /**
+     * Removes a book from the trie.
+     *
+     * @param bookId The ID of the book.
+     */
+    public void removeBook(Long bookId) {
+        apply(target -> target.removeBook(bookId, true));
+    }
+
+    /**
+     * Applies a change to the trie, and records it for the rebuilt trie while a rebuild runs.
+     *
+     * @param change The change to apply.
+     */
+    private void apply(Consumer<Trie> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(trie);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests titles and authors starting with the typed prefix. Titles also match without
+     * their leading article, so "hob" completes "The Hobbit".
+     *
+     * @param prefix The typed prefix, case-insensitive.
+     * @param limit  The maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}.
+     * @return The best weighted suggestions, best first.
+     */
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix, false);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = trie.root.find(key);
+            if (node == null) {
+                return List.of();
+            }
+            int count = Math.min(limit, node.top.length);
+            List<BookSuggestion> suggestions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Suggestion suggestion = node.top[i];
+                suggestions.add(new BookSuggestion(suggestion.text, suggestion.type, suggestion.bestBookId));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases text and collapses whitespace into single spaces.
+     *
+     * @param text         The text to normalize, may be null.
+     * @param trimTrailing Whether a trailing space is dropped; kept for typed prefixes, where it ends a word.
+     * @return The normalized text.
+     */
+    static String normalize(String text, boolean trimTrailing) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = !normalized.isEmpty();
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+            }
+            normalized.append(Character.toLowerCase(c));
+        }
+        if (space && !trimTrailing) {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+
+    private static double weight(BookEntry entry) {
+        return entry.rating + Math.log1p(entry.purchaseCount);
+    }
+
+    /**
+     * The indexed title, author and popularity of a book.
+     */
+    private static final class BookEntry {
+
+        private final String title;
+        private final String author;
+        private double rating;
+        private int purchaseCount;
+
+        private BookEntry(String title, String author, double rating, int purchaseCount) {
+            this.title = title;
+            this.author = author;
+            this.rating = rating;
+            this.purchaseCount = purchaseCount;
+        }
+
+    }
+
+    /**
+     * A distinct title or author, shared by all books carrying it.
+     */
+    private static final class Suggestion {
+
+        private final BookSuggestionType type;
+        private final String text;
+        private final Map<Long, Double> weightsByBook = new HashMap<>(2);
+        private final List<Node> nodes = new ArrayList<>(1);
+        private double weight;
+        private Long bestBookId;
+
+        private Suggestion(BookSuggestionType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        private void reweigh() {
+            weight = 0;
+            bestBookId = null;
+            for (Map.Entry<Long, Double> entry : weightsByBook.entrySet()) {
+                if (bestBookId == null || entry.getValue() > weight) {
+                    weight = entry.getValue();
+                    bestBookId = entry.getKey();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A trie node. The edge label leading to it may span several characters; children are kept
+     * sorted by the first character of their label.
+     */
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private Node parent;
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private List<Suggestion> terminals;
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        private Node(Node parent, String label) {
+            this.parent = parent;
+            this.label = label;
+        }
+
+        private int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midFirst = children[mid].label.charAt(0);
+                if (midFirst < first) {
+                    low = mid + 1;
+                } else if (midFirst > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void addChild(Node child) {
+            int insertion = -(childIndex(child.label.charAt(0)) + 1);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertion);
+            grown[insertion] = child;
+            System.arraycopy(children, insertion, grown, insertion + 1, children.length - insertion);
+            children = grown;
+        }
+
+        private void removeChild(Node child) {
+            int index = childIndex(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        /**
+         * Finds or creates the node of a key, splitting edges as needed.
+         *
+         * @param key The normalized key.
+         * @return The node the key ends at.
+         */
+        private Node insert(String key) {
+            Node node = this;
+            int offset = 0;
+            while (offset < key.length()) {
+                int index = node.childIndex(key.charAt(offset));
+                if (index < 0) {
+                    Node leaf = new Node(node, key.substring(offset));
+                    node.addChild(leaf);
+                    return leaf;
+                }
+                Node child = node.children[index];
+                int common = commonPrefixLength(child.label, key, offset);
+                if (common < child.label.length()) {
+                    Node middle = new Node(node, child.label.substring(0, common));
+                    middle.top = child.top;
+                    node.children[index] = middle;
+                    child.label = child.label.substring(common);
+                    child.parent = middle;
+                    middle.children = new Node[]{child};
+                    child = middle;
+                }
+                node = child;
+                offset += common;
+            }
+            return node;
+        }
+
+        /**
+         * Finds the node whose subtree holds every key starting with the prefix.
+         *
+         * @param prefix The normalized prefix.
+         * @return The node, or null if no key starts with the prefix.
+         */
+        private Node find(String prefix) {
+            Node node = this;
+            int offset = 0;
+            while (offset < prefix.length()) {
+                int index = node.childIndex(prefix.charAt(offset));
+                if (index < 0) {
+                    return null;
+                }
+                Node child = node.children[index];
+                int common = commonPrefixLength(child.label, prefix, offset);
+                if (common < child.label.length() && offset + common < prefix.length()) {
+                    return null;
+                }
+                node = child;
+                offset += common;
+            }
+            return node;
+        }
+
+        private static int commonPrefixLength(String label, String key, int offset) {
+            int max = Math.min(label.length(), key.length() - offset);
+            int length = 0;
+            while (length < max && label.charAt(length) == key.charAt(offset + length)) {
+                length++;
+            }
+            return length;
+        }
+
+        /**
+         * Recomputes the cached suggestions of this node from its own suggestions and its children's lists.
+         */
+        private void refreshTop() {
+            List<Suggestion> candidates = new ArrayList<>();
+            if (terminals != null) {
+                candidates.addAll(terminals);
+            }
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_WEIGHT_DESC);
+
+            // The same suggestion may sit under several keys of the subtree
+            Set<Suggestion> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Suggestion> best = new ArrayList<>(MAX_SUGGESTIONS);
+            for (Suggestion candidate : candidates) {
+                if (seen.add(candidate)) {
+                    best.add(candidate);
+                    if (best.size() == MAX_SUGGESTIONS) {
+                        break;
+                    }
+                }
+            }
+            top = best.toArray(NO_SUGGESTIONS);
+        }
+
+        private void refreshPath() {
+            for (Node node = this; node != null; node = node.parent) {
+                node.refreshTop();
+            }
+        }
+
+        private void refreshSubtree() {
+            for (Node child : children) {
+                child.refreshSubtree();
+            }
+            refreshTop();
+        }
+
+        /**
+         * Detaches this node and its empty ancestors from the trie if they no longer hold any suggestion.
+         *
+         * @return The deepest remaining node on the path.
+         */
+        private Node prune() {
+            Node node = this;
+            while (node.parent != null && node.children.length == 0
+                    && (node.terminals == null || node.terminals.isEmpty())) {
+                node.parent.removeChild(node);
+                node = node.parent;
+            }
+            return node;
+        }
+
+    }
+
+    /**
+     * The trie with its suggestions and indexed books. Guarded by the index lock.
+     */
+    private static final class Trie {
+
+        private final Node root = new Node(null, "");
+        private final Map<Long, BookEntry> books = new HashMap<>();
+        private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+        private void putBook(Long bookId, BookEntry entry, boolean refresh) {
+            removeBook(bookId, refresh);
+            books.put(bookId, entry);
+            double weight = weight(entry);
+            attach(BookSuggestionType.TITLE, entry.title, bookId, weight, refresh);
+            attach(BookSuggestionType.AUTHOR, entry.author, bookId, weight, refresh);
+        }
+
+        private void removeBook(Long bookId, boolean refresh) {
+            BookEntry entry = books.remove(bookId);
+            if (entry != null) {
+                detach(BookSuggestionType.TITLE, entry.title, bookId, refresh);
+                detach(BookSuggestionType.AUTHOR, entry.author, bookId, refresh);
+            }
+        }
+
+        private void reweigh(Long bookId, BookEntry entry) {
+            double weight = weight(entry);
+            for (BookSuggestionType type : BookSuggestionType.values()) {
+                String text = type == BookSuggestionType.TITLE ? entry.title : entry.author;
+                Suggestion suggestion = suggestions.get(type + ":" + normalize(text, true));
+                if (suggestion != null) {
+                    suggestion.weightsByBook.put(bookId, weight);
+                    suggestion.reweigh();
+                    suggestion.nodes.forEach(Node::refreshPath);
+                }
+            }
+        }
+
+        private void attach(BookSuggestionType type, String text, Long bookId, double weight, boolean refresh) {
+            String key = normalize(text, true);
+            if (key.isEmpty()) {
+                return;
+            }
+            Suggestion suggestion = suggestions.get(type + ":" + key);
+            if (suggestion == null) {
+                suggestion = new Suggestion(type, text.trim());
+                suggestions.put(type + ":" + key, suggestion);
+                for (String variant : keyVariants(type, key)) {
+                    Node node = root.insert(variant);
+                    if (node.terminals == null) {
+                        node.terminals = new ArrayList<>(1);
+                    }
+                    node.terminals.add(suggestion);
+                    suggestion.nodes.add(node);
+                }
+            }
+            suggestion.weightsByBook.put(bookId, weight);
+            suggestion.reweigh();
+            if (refresh) {
+                suggestion.nodes.forEach(Node::refreshPath);
+            }
+        }
+
+        private void detach(BookSuggestionType type, String text, Long bookId, boolean refresh) {
+            String key = normalize(text, true);
+            Suggestion suggestion = suggestions.get(type + ":" + key);
+            if (suggestion == null) {
+                return;
+            }
+            suggestion.weightsByBook.remove(bookId);
+            if (suggestion.weightsByBook.isEmpty()) {
+                suggestions.remove(type + ":" + key);
+                for (Node node : suggestion.nodes) {
+                    node.terminals.remove(suggestion);
+                    Node remaining = node.prune();
+                    if (refresh) {
+                        remaining.refreshPath();
+                    }
+                }
+                return;
+            }
+            suggestion.reweigh();
+            if (refresh) {
+                suggestion.nodes.forEach(Node::refreshPath);
+            }
+        }
+
+        private static List<String> keyVariants(BookSuggestionType type, String key) {
+            if (type == BookSuggestionType.TITLE) {
+                for (String article : LEADING_ARTICLES) {
+                    if (key.startsWith(article) && key.length() > article.length()) {
+                        return List.of(key, key.substring(article.length()));
+                    }
+                }
+            }
+            return List.of(key);
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.domain.enums.AuthorityName;
+import com.example.onlinelibrary.repository.UserRepository;
+import com.example.onlinelibrary.repository.projection.UserBookLinkView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the books each user owns, as one compressed bitmap of book IDs per user.
+ * Turns book access checks into a membership test instead of a database query.
+ * Users with a {@link AuthorityName#CATALOG_ACCESS} role have no associations and are kept as a set of IDs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookOwnershipIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookOwnershipIndex.class);
+
+    private final UserRepository userRepository;
+
+    private volatile Map<Long, Roaring64NavigableMap> booksByUser = new ConcurrentHashMap<>();
+    private volatile Set<Long> catalogUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    /**
+     * Rebuilds the index from the user_books associations once the application is ready.
+     * Holds the index lock throughout, so changes recorded meanwhile wait and apply to the rebuilt maps.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        logger.info("Building book ownership index...");
+
+        Map<Long, Roaring64NavigableMap> rebuilt = new ConcurrentHashMap<>();
+        long links = 0;
+        try (Stream<UserBookLinkView> bookLinks = userRepository.streamAllBookLinks()) {
+            Iterator<UserBookLinkView> iterator = bookLinks.iterator();
+            while (iterator.hasNext()) {
+                UserBookLinkView link = iterator.next();
+                rebuilt.computeIfAbsent(link.getUserId(), id -> new Roaring64NavigableMap())
+                        .addLong(link.getBookId());
+                links++;
+            }
+        }
+        rebuilt.values().forEach(Roaring64NavigableMap::runOptimize);
+        Set<Long> rebuiltCatalogUsers = ConcurrentHashMap.newKeySet();
+        rebuiltCatalogUsers.addAll(userRepository.findIdsByAuthorityNames(AuthorityName.CATALOG_ACCESS));
+        booksByUser = rebuilt;
+        catalogUsers = rebuiltCatalogUsers;
+        ready = true;
+
+        logger.info("Book ownership index built: {} users, {} user-book links, {} users with catalog access",
+                rebuilt.size(), links, rebuiltCatalogUsers.size());
+    }
+
+    /**
+     * Indicates whether the index has been built and can answer ownership checks.
+     *
+     * @return True if the index is ready, false otherwise.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Checks whether a user owns a book.
+     *
+     * @param userId The ID of the user.
+     * @param bookId The ID of the book.
+     * @return True if the book is assigned to the user, false otherwise.
+     */
+    public boolean isOwned(Long userId, Long bookId) {
+        Roaring64NavigableMap books = booksByUser.get(userId);
+        if (books == null) {
+            return false;
+        }
+        synchronized (books) {
+            return books.contains(bookId);
+        }
+    }
+
+    /**
+     * Checks whether a user accesses every book through a {@link AuthorityName#CATALOG_ACCESS} role.
+     *
+     * @param userId The ID of the user.
+     * @return True if the user has catalog access, false otherwise.
+     */
+    public boolean hasCatalogAccess(Long userId) {
+        return catalogUsers.contains(userId);
+    }
+
+    /**
+     * Records that a user owns a book.
+     *
+     * @param userId The ID of the user.
+     * @param bookId The ID of the book.
+     */
+    public synchronized void add(Long userId, Long bookId) {
+        Roaring64NavigableMap books = booksByUser.computeIfAbsent(userId, id -> new Roaring64NavigableMap());
+        synchronized (books) {
+            books.addLong(bookId);
+        }
+    }
+
+    /**
+     * Removes a deleted book from every user.
+     *
+     * @param bookId The ID of the book.
+     */
+    public synchronized void removeBook(Long bookId) {
+        for (Roaring64NavigableMap books : booksByUser.values()) {
+            synchronized (books) {
+                books.removeLong(bookId);
+            }
+        }
+    }
+
+    /**
+     * Removes a deleted user.
+     *
+     * @param userId The ID of the user.
+     */
+    public synchronized void removeUser(Long userId) {
+        booksByUser.remove(userId);
+        catalogUsers.remove(userId);
+    }
+
+    /**
+     * Records whether a user accesses every book through a {@link AuthorityName#CATALOG_ACCESS} role,
+     * after the user's authorities changed.
+     *
+     * @param userId        The ID of the user.
+     * @param catalogAccess True if the user has a catalog access role, false otherwise.
+     */
+    public synchronized void updateCatalogAccess(Long userId, boolean catalogAccess) {
+        if (catalogAccess) {
+            catalogUsers.add(userId);
+        } else {
+            catalogUsers.remove(userId);
+        }
+    }
+
+}
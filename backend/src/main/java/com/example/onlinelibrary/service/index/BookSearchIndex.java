@@ -0,0 +1,455 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.projection.BookTextView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index serving full-text search over the catalog.
+ * Title, author, description, publisher and ISBN are tokenized into one posting list per term,
+ * weighted per field and ranked with BM25. The last query term also matches as a prefix.
+ * <p>
+ * Books are stored under internal, append-only document numbers: an update appends a new document
+ * and marks the previous one deleted, and deleted documents are compacted away once they pile up.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float ISBN_WEIGHT = 2.0f;
+    private static final float PUBLISHER_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_DOCUMENTS_TO_COMPACT = 1024;
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+    /**
+     * Changes made while a rebuild reads the books table, replayed onto the rebuilt segment before it
+     * replaces the current one. Null when no rebuild runs. Guarded by the index lock.
+     */
+    private List<Consumer<Segment>> pendingChanges;
+
+    /**
+     * Rebuilds the index from the books table once the application (and its data import) is ready.
+     * Books put or removed while the table is read are applied to both segments, so none is lost with the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        logger.info("Building book search index...");
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        boolean read = false;
+        try (Stream<BookTextView> books = bookRepository.streamAllTextViews()) {
+            Iterator<BookTextView> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                BookTextView book = iterator.next();
+                rebuilt.add(book.getId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                        book.getPublisher(), book.getIsbn());
+            }
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed rebuild keeps the current segment, which already has every change
+                if (read) {
+                    pendingChanges.forEach(change -> change.accept(rebuilt));
+                    segment = rebuilt;
+                    compactIfNeeded();
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("Book search index built: {} books, {} terms in {} ms",
+                rebuilt.liveCount, rebuilt.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds a book to the index or replaces its indexed text.
+     *
+     * @param book The book to index.
+     */
+    public void putBook(Book book) {
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        String description = book.getDescription();
+        String publisher = book.getPublisher();
+        String isbn = book.getIsbn();
+        apply(target -> {
+            target.remove(bookId);
+            target.add(bookId, title, author, description, publisher, isbn);
+        });
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param bookId The ID of the book.
+     */
+    public void removeBook(Long bookId) {
+        apply(target -> target.remove(bookId));
+    }
+
+    /**
+     * Applies a change to the segment, and records it for the rebuilt segment while a rebuild runs.
+     *
+     * @param change The change to apply.
+     */
+    private void apply(Consumer<Segment> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the segment once deleted documents outnumber half of the live ones. Called under the write lock.
+     */
+    private void compactIfNeeded() {
+        if (segment.docCount >= MIN_DOCUMENTS_TO_COMPACT && segment.deleted.cardinality() * 2 > segment.liveCount) {
+            segment = segment.compact();
+        }
+    }
+
+    /**
+     * Searches the catalog, ranking matching books by BM25 relevance.
+     *
+     * @param query The search query; its last term also matches as a prefix unless followed by a space.
+     * @param limit The maximum number of results.
+     * @return The IDs of the best matching books, most relevant first.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, prefixLast, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case alphanumeric terms. Hyphenated codes such as ISBNs are
+     * additionally emitted with their separators removed, so "978-3-16" also matches "978316".
+     *
+     * @param text The text to tokenize, may be null.
+     * @return The terms of the text, in order.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        StringBuilder joined = new StringBuilder();
+        int parts = 0;
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+                continue;
+            }
+            if (!term.isEmpty()) {
+                addTerm(terms, term);
+                joined.append(term);
+                parts++;
+                term.setLength(0);
+            }
+            if (Character.isWhitespace(c)) {
+                if (parts > 1) {
+                    addTerm(terms, joined);
+                }
+                joined.setLength(0);
+                parts = 0;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, CharSequence term) {
+        if (term.length() <= MAX_TOKEN_LENGTH) {
+            terms.add(term.toString());
+        }
+    }
+
+    /**
+     * Document numbers of the books containing a term, in ascending order, with the weighted term frequencies.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        private void add(int doc, float frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+    }
+
+    /**
+     * The posting lists and per-document statistics of the index. Guarded by the index lock.
+     */
+    private static final class Segment {
+
+        private final NavigableMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Long, Integer> docsByBook = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] bookIds = new long[1024];
+        private float[] lengths = new float[1024];
+        private int docCount;
+        private int liveCount;
+        private double totalLength;
+
+        private void add(Long bookId, String title, String author, String description, String publisher, String isbn) {
+            Map<String, Float> frequencies = new HashMap<>();
+            float length = addField(frequencies, title, TITLE_WEIGHT)
+                    + addField(frequencies, author, AUTHOR_WEIGHT)
+                    + addField(frequencies, description, DESCRIPTION_WEIGHT)
+                    + addField(frequencies, publisher, PUBLISHER_WEIGHT)
+                    + addField(frequencies, isbn, ISBN_WEIGHT);
+
+            int doc = docCount++;
+            if (doc == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, doc * 2);
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            bookIds[doc] = bookId;
+            lengths[doc] = length;
+            docsByBook.put(bookId, doc);
+            liveCount++;
+            totalLength += length;
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, frequency));
+        }
+
+        private static float addField(Map<String, Float> frequencies, String text, float weight) {
+            List<String> terms = tokenize(text);
+            for (String term : terms) {
+                frequencies.merge(term, weight, Float::sum);
+            }
+            return terms.size() * weight;
+        }
+
+        private void remove(Long bookId) {
+            Integer doc = docsByBook.remove(bookId);
+            if (doc != null) {
+                deleted.set(doc);
+                liveCount--;
+                totalLength -= lengths[doc];
+            }
+        }
+
+        /**
+         * Copies the live documents into a new segment with dense document numbers.
+         *
+         * @return The compacted segment.
+         */
+        private Segment compact() {
+            Segment compacted = new Segment();
+            int[] remapped = new int[docCount];
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remapped[doc] = -1;
+                    continue;
+                }
+                int newDoc = compacted.docCount++;
+                if (newDoc == compacted.bookIds.length) {
+                    compacted.bookIds = Arrays.copyOf(compacted.bookIds, newDoc * 2);
+                    compacted.lengths = Arrays.copyOf(compacted.lengths, newDoc * 2);
+                }
+                compacted.bookIds[newDoc] = bookIds[doc];
+                compacted.lengths[newDoc] = lengths[doc];
+                compacted.docsByBook.put(bookIds[doc], newDoc);
+                remapped[doc] = newDoc;
+            }
+            compacted.liveCount = liveCount;
+            compacted.totalLength = totalLength;
+
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings source = entry.getValue();
+                Postings target = null;
+                for (int i = 0; i < source.size; i++) {
+                    int newDoc = remapped[source.docs[i]];
+                    if (newDoc >= 0) {
+                        if (target == null) {
+                            target = new Postings();
+                        }
+                        target.add(newDoc, source.frequencies[i]);
+                    }
+                }
+                if (target != null) {
+                    compacted.postings.put(entry.getKey(), target);
+                }
+            }
+            logger.debug("Compacted book search index from {} to {} documents", docCount, compacted.docCount);
+            return compacted;
+        }
+
+        private List<Long> search(List<String> terms, boolean prefixLast, int limit) {
+            if (liveCount == 0) {
+                return List.of();
+            }
+            float averageLength = (float) Math.max(totalLength / liveCount, 1.0);
+            float[] scores = new float[docCount];
+            BitSet matched = new BitSet(docCount);
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                if (prefixLast && i == terms.size() - 1) {
+                    int expansions = 0;
+                    for (Postings termPostings : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                        score(termPostings, averageLength, scores, matched);
+                        if (++expansions == MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                } else {
+                    Postings termPostings = postings.get(term);
+                    if (termPostings != null) {
+                        score(termPostings, averageLength, scores, matched);
+                    }
+                }
+            }
+
+            // Min-heap of the best documents so far, the weakest on top
+            int[] heap = new int[limit];
+            int heapSize = 0;
+            for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+                if (heapSize < limit) {
+                    heap[heapSize] = doc;
+                    siftUp(heap, heapSize++, scores);
+                } else if (isBetter(doc, heap[0], scores)) {
+                    heap[0] = doc;
+                    siftDown(heap, heapSize, scores);
+                }
+            }
+
+            Long[] ranked = new Long[heapSize];
+            while (heapSize > 0) {
+                ranked[--heapSize] = bookIds[heap[0]];
+                heap[0] = heap[heapSize];
+                siftDown(heap, heapSize, scores);
+            }
+            return Arrays.asList(ranked);
+        }
+
+        private boolean isBetter(int doc, int other, float[] scores) {
+            return scores[doc] != scores[other] ? scores[doc] > scores[other] : bookIds[doc] < bookIds[other];
+        }
+
+        private void siftUp(int[] heap, int index, float[] scores) {
+            int doc = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!isBetter(heap[parent], doc, scores)) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = doc;
+        }
+
+        private void siftDown(int[] heap, int size, float[] scores) {
+            if (size == 0) {
+                return;
+            }
+            int doc = heap[0];
+            int index = 0;
+            int child;
+            while ((child = 2 * index + 1) < size) {
+                if (child + 1 < size && isBetter(heap[child], heap[child + 1], scores)) {
+                    child++;
+                }
+                if (!isBetter(doc, heap[child], scores)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = doc;
+        }
+
+        private void score(Postings termPostings, float averageLength, float[] scores, BitSet matched) {
+            // Document frequency still counts deleted documents until the next compaction
+            int documentFrequency = Math.min(termPostings.size, liveCount);
+            float idf = (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = termPostings.docs[i];
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                float frequency = termPostings.frequencies[i];
+                float norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                scores[doc] += idf * frequency * (K1 + 1) / (frequency + norm);
+                matched.set(doc);
+            }
+        }
+
+    }
+
+}
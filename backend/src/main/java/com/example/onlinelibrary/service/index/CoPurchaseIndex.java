@@ -0,0 +1,440 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.config.props.RecommendationProperties;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.PurchaseLinkView;
+import it.unimi.dsi.fastutil.longs.Long2DoubleMap;
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory item-to-item co-purchase model: "readers who bought X also bought Y".
+ * Keeps sparse co-occurrence counts between books bought by the same user in primitive-keyed maps,
+ * updated as purchases arrive, and serves the top neighbors of each book by cosine similarity.
+ * <p>
+ * The model is saved to a binary snapshot together with the ID of the last purchase it has seen,
+ * so a restart only replays the purchases made after the snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CoPurchaseIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoPurchaseIndex.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x434F5055;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final PurchaseRepository purchaseRepository;
+    private final RecommendationProperties recommendationProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Model model = new Model();
+    /**
+     * Changes made while a load reads the snapshot and the purchase table, replayed onto the loaded model
+     * before it replaces the current one. Null when no load runs. Guarded by the index lock.
+     */
+    private List<Consumer<Model>> pendingChanges;
+
+    /**
+     * Restores the model from its snapshot and replays the purchases made since, once the application is ready.
+     * Falls back to a full rebuild from the purchase table when there is no usable snapshot.
+     * Purchases and book deletions recorded meanwhile, including write-behind purchases not stored yet,
+     * are applied to both models, so none is lost with the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Model loaded = null;
+        long replayed = 0;
+        boolean read = false;
+        try {
+            Path snapshot = snapshotPath();
+            if (Files.isRegularFile(snapshot)) {
+                try {
+                    loaded = readSnapshot(snapshot);
+                } catch (IOException e) {
+                    logger.warn("Ignoring unreadable co-purchase snapshot {}: {}", snapshot, e.getMessage());
+                }
+            }
+            if (loaded != null && loaded.watermark > purchaseRepository.findMaxId()) {
+                logger.warn("Ignoring co-purchase snapshot {}, it is ahead of the purchase table", snapshot);
+                loaded = null;
+            }
+            if (loaded == null) {
+                logger.info("Building co-purchase model from the purchase table...");
+                loaded = new Model();
+            }
+
+            try (Stream<PurchaseLinkView> purchases = purchaseRepository.streamLinkViewsAfterId(loaded.watermark)) {
+                Iterator<PurchaseLinkView> iterator = purchases.iterator();
+                while (iterator.hasNext()) {
+                    PurchaseLinkView purchase = iterator.next();
+                    loaded.record(purchase.getId(), purchase.getUserId(), purchase.getBookId());
+                    replayed++;
+                }
+            }
+            read = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                // A failed load keeps the current model, which already has every change
+                if (read) {
+                    Model target = loaded;
+                    pendingChanges.forEach(change -> change.accept(target));
+                    model = loaded;
+                    model.dirty = model.dirty || replayed > 0;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        logger.info("Co-purchase model ready: {} users, {} books, {} purchases replayed",
+                loaded.booksByUser.size(), loaded.coCounts.size(), replayed);
+    }
+
+    /**
+     * Records a purchase, counting the book as co-purchased with every other book of the user.
+     *
+     * @param purchaseId The ID of the purchase.
+     * @param userId     The ID of the buying user.
+     * @param bookId     The ID of the bought book.
+     */
+    public void recordPurchase(Long purchaseId, Long userId, Long bookId) {
+        apply(target -> target.record(purchaseId, userId, bookId));
+    }
+
+    /**
+     * Removes a deleted book from the model.
+     *
+     * @param bookId The ID of the book.
+     */
+    public void removeBook(Long bookId) {
+        apply(target -> target.removeBook(bookId));
+    }
+
+    /**
+     * Applies a change to the model, and records it for the loaded model while a load runs.
+     *
+     * @param change The change to apply.
+     */
+    private void apply(Consumer<Model> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(model);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the books co-purchased with the user's books: the sum, over the user's books,
+     * of each neighbor's similarity to them. Books the user already bought are excluded.
+     *
+     * @param userId The ID of the user.
+     * @return The affinity of each candidate book, keyed by book ID.
+     */
+    public Long2DoubleMap affinities(Long userId) {
+        lock.readLock().lock();
+        try {
+            Long2DoubleMap affinities = new Long2DoubleOpenHashMap();
+            LongSet owned = model.booksByUser.get(userId.longValue());
+            if (owned == null) {
+                return affinities;
+            }
+            LongIterator ownedBooks = owned.iterator();
+            while (ownedBooks.hasNext()) {
+                Neighbors neighbors = model.neighbors(ownedBooks.nextLong());
+                for (int i = 0; i < neighbors.bookIds.length; i++) {
+                    long neighbor = neighbors.bookIds[i];
+                    if (!owned.contains(neighbor)) {
+                        affinities.mergeDouble(neighbor, neighbors.similarities[i], Double::sum);
+                    }
+                }
+            }
+            return affinities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the model to its snapshot file if it changed since the last save.
+     */
+    @Scheduled(fixedDelayString = "${recommendation.co-purchase.snapshot-interval:300000}",
+            initialDelayString = "${recommendation.co-purchase.snapshot-interval:300000}")
+    @PreDestroy
+    public synchronized void saveSnapshot() {
+        lock.readLock().lock();
+        try {
+            if (!model.dirty) {
+                return;
+            }
+            Path snapshot = snapshotPath();
+            writeSnapshot(model, snapshot);
+            model.dirty = false;
+            logger.info("Co-purchase snapshot saved to {} at purchase ID {}", snapshot, model.watermark);
+        } catch (IOException e) {
+            logger.error("Failed to save co-purchase snapshot", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Path snapshotPath() {
+        return Path.of(recommendationProperties.getCoPurchase().getSnapshotFile());
+    }
+
+    /**
+     * Writes the model to a temporary file and moves it over the snapshot, so a crash never leaves a torn snapshot.
+     *
+     * @param model    The model to save.
+     * @param snapshot The snapshot file.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    private static void writeSnapshot(Model model, Path snapshot) throws IOException {
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(model.watermark);
+
+            out.writeInt(model.booksByUser.size());
+            for (Long2ObjectMap.Entry<LongSet> user : model.booksByUser.long2ObjectEntrySet()) {
+                out.writeLong(user.getLongKey());
+                out.writeInt(user.getValue().size());
+                LongIterator books = user.getValue().iterator();
+                while (books.hasNext()) {
+                    out.writeLong(books.nextLong());
+                }
+            }
+
+            out.writeInt(model.coCounts.size());
+            for (Long2ObjectMap.Entry<Long2IntOpenHashMap> book : model.coCounts.long2ObjectEntrySet()) {
+                out.writeLong(book.getLongKey());
+                out.writeInt(model.buyers.get(book.getLongKey()));
+                out.writeInt(book.getValue().size());
+                for (Long2IntMap.Entry count : book.getValue().long2IntEntrySet()) {
+                    out.writeLong(count.getLongKey());
+                    out.writeInt(count.getIntValue());
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Model readSnapshot(Path snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown snapshot format");
+            }
+            Model model = new Model();
+            model.watermark = in.readLong();
+
+            int users = in.readInt();
+            for (int i = 0; i < users; i++) {
+                long userId = in.readLong();
+                int count = in.readInt();
+                LongSet books = new LongOpenHashSet(count);
+                for (int j = 0; j < count; j++) {
+                    books.add(in.readLong());
+                }
+                model.booksByUser.put(userId, books);
+                LongIterator iterator = books.iterator();
+                while (iterator.hasNext()) {
+                    model.usersByBook.computeIfAbsent(iterator.nextLong(), id -> new LongOpenHashSet()).add(userId);
+                }
+            }
+
+            int books = in.readInt();
+            for (int i = 0; i < books; i++) {
+                long bookId = in.readLong();
+                model.buyers.put(bookId, in.readInt());
+                int count = in.readInt();
+                Long2IntOpenHashMap counts = new Long2IntOpenHashMap(count);
+                for (int j = 0; j < count; j++) {
+                    counts.put(in.readLong(), in.readInt());
+                }
+                model.coCounts.put(bookId, counts);
+            }
+            return model;
+        }
+    }
+
+    /**
+     * The top neighbors of a book, most similar first.
+     */
+    private record Neighbors(long[] bookIds, double[] similarities) {
+
+        private static final Neighbors NONE = new Neighbors(new long[0], new double[0]);
+
+    }
+
+    /**
+     * The co-purchase counts and derived neighbor lists. Guarded by the index lock.
+     * The neighbor cache is filled by readers under the read lock, so it is a concurrent map;
+     * writers only invalidate it, under the write lock.
+     */
+    private final class Model {
+
+        private final Long2ObjectOpenHashMap<LongSet> booksByUser = new Long2ObjectOpenHashMap<>();
+        private final Long2ObjectOpenHashMap<LongSet> usersByBook = new Long2ObjectOpenHashMap<>();
+        private final Long2ObjectOpenHashMap<Long2IntOpenHashMap> coCounts = new Long2ObjectOpenHashMap<>();
+        private final Long2IntOpenHashMap buyers = new Long2IntOpenHashMap();
+        private final Map<Long, Neighbors> neighborCache = new ConcurrentHashMap<>();
+        private long watermark;
+        private boolean dirty;
+
+        private void record(long purchaseId, long userId, long bookId) {
+            watermark = Math.max(watermark, purchaseId);
+            LongSet owned = booksByUser.computeIfAbsent(userId, id -> new LongOpenHashSet());
+            // Buying the same book again adds no co-purchase evidence
+            if (!owned.add(bookId)) {
+                return;
+            }
+            dirty = true;
+            usersByBook.computeIfAbsent(bookId, id -> new LongOpenHashSet()).add(userId);
+            buyers.addTo(bookId, 1);
+            neighborCache.remove(bookId);
+            Long2IntOpenHashMap bookCounts = coCounts.computeIfAbsent(bookId, id -> new Long2IntOpenHashMap());
+            LongIterator iterator = owned.iterator();
+            while (iterator.hasNext()) {
+                long other = iterator.nextLong();
+                if (other == bookId) {
+                    continue;
+                }
+                bookCounts.addTo(other, 1);
+                coCounts.computeIfAbsent(other, id -> new Long2IntOpenHashMap()).addTo(bookId, 1);
+                neighborCache.remove(other);
+            }
+        }
+
+        private void removeBook(long bookId) {
+            Long2IntOpenHashMap counts = coCounts.remove(bookId);
+            if (counts != null) {
+                LongIterator iterator = counts.keySet().iterator();
+                while (iterator.hasNext()) {
+                    long other = iterator.nextLong();
+                    Long2IntOpenHashMap otherCounts = coCounts.get(other);
+                    if (otherCounts != null) {
+                        otherCounts.remove(bookId);
+                    }
+                    neighborCache.remove(other);
+                }
+            }
+            buyers.remove(bookId);
+            neighborCache.remove(bookId);
+            LongSet owners = usersByBook.remove(bookId);
+            if (owners != null) {
+                LongIterator users = owners.iterator();
+                while (users.hasNext()) {
+                    LongSet owned = booksByUser.get(users.nextLong());
+                    if (owned != null) {
+                        owned.remove(bookId);
+                    }
+                }
+            }
+            dirty = true;
+        }
+
+        /**
+         * Returns the top neighbors of a book by cosine similarity, computing them on first use after a change.
+         * Lists of other books keep the similarity they were computed with until one of their own counts changes.
+         * Called under the read lock; concurrent readers may compute the same list, and either result is kept.
+         *
+         * @param bookId The ID of the book.
+         * @return The neighbors of the book.
+         */
+        private Neighbors neighbors(long bookId) {
+            Neighbors cached = neighborCache.get(bookId);
+            if (cached != null) {
+                return cached;
+            }
+            Long2IntOpenHashMap counts = coCounts.get(bookId);
+            if (counts == null || counts.isEmpty()) {
+                return Neighbors.NONE;
+            }
+
+            int limit = recommendationProperties.getCoPurchase().getNeighbors();
+            long[] ids = new long[counts.size()];
+            double[] similarities = new double[counts.size()];
+            int size = 0;
+            int bookBuyers = Math.max(buyers.get(bookId), 1);
+            for (Long2IntMap.Entry count : counts.long2IntEntrySet()) {
+                ids[size] = count.getLongKey();
+                similarities[size] = count.getIntValue() / Math.sqrt((double) bookBuyers * Math.max(buyers.get(ids[size]), 1));
+                size++;
+            }
+
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(similarities[b], similarities[a]));
+            int kept = Math.min(limit, size);
+            long[] topIds = new long[kept];
+            double[] topSimilarities = new double[kept];
+            for (int i = 0; i < kept; i++) {
+                topIds[i] = ids[order[i]];
+                topSimilarities[i] = similarities[order[i]];
+            }
+            Neighbors neighbors = new Neighbors(topIds, topSimilarities);
+            neighborCache.put(bookId, neighbors);
+            return neighbors;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.BookRatingView;
+import com.example.onlinelibrary.repository.projection.PurchaseLinkView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index serving genre based recommendations.
+ * Keeps the candidate books of every genre sorted by rating and a genre profile per user,
+ * both updated incrementally as books, purchases and ratings change.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GenreRecommendationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenreRecommendationIndex.class);
+
+    private static final Comparator<Candidate> BY_RATING_DESC = Comparator
+            .comparingDouble(Candidate::rating).reversed()
+            .thenComparingLong(Candidate::bookId);
+
+    private final BookRepository bookRepository;
+    private final PurchaseRepository purchaseRepository;
+
+    private final Map<String, NavigableSet<Candidate>> candidatesByGenre = new ConcurrentHashMap<>();
+    private final Map<Long, Candidate> candidatesByBook = new ConcurrentHashMap<>();
+    private final Map<Long, UserProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuilds the index from the database once the application (and its data import) is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        logger.info("Building genre recommendation index...");
+
+        candidatesByGenre.clear();
+        candidatesByBook.clear();
+        profiles.clear();
+
+        for (BookRatingView book : bookRepository.findAllRatingViews()) {
+            putBook(book.getId(), book.getGenre(), book.getRating());
+        }
+        for (PurchaseLinkView purchase : purchaseRepository.findAllLinkViews()) {
+            recordPurchase(purchase.getUserId(), purchase.getBookId());
+        }
+
+        logger.info("Genre recommendation index built: {} books, {} genres, {} users",
+                candidatesByBook.size(), candidatesByGenre.size(), profiles.size());
+    }
+
+    /**
+     * Adds a book to the index or moves it to its new genre and rating.
+     *
+     * @param bookId The ID of the book.
+     * @param genre  The genre of the book.
+     * @param rating The current rating of the book.
+     */
+    public synchronized void putBook(Long bookId, String genre, double rating) {
+        removeBook(bookId);
+        if (genre == null) {
+            return;
+        }
+        Candidate candidate = new Candidate(bookId, genre, rating);
+        candidatesByBook.put(bookId, candidate);
+        candidatesByGenre.computeIfAbsent(genre, g -> new ConcurrentSkipListSet<>(BY_RATING_DESC))
+                .add(candidate);
+    }
+
+    /**
+     * Updates the rating of an indexed book, keeping its genre list sorted.
+     *
+     * @param bookId The ID of the book.
+     * @param rating The new rating of the book.
+     */
+    public synchronized void updateRating(Long bookId, double rating) {
+        Candidate current = candidatesByBook.get(bookId);
+        if (current != null) {
+            putBook(bookId, current.genre(), rating);
+        }
+    }
+
+    /**
+     * Returns the indexed rating of a book.
+     *
+     * @param bookId The ID of the book.
+     * @return The rating of the book, 0 if the book is not indexed.
+     */
+    public double ratingOf(Long bookId) {
+        Candidate candidate = candidatesByBook.get(bookId);
+        return candidate != null ? candidate.rating() : 0.0;
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param bookId The ID of the book.
+     */
+    public synchronized void removeBook(Long bookId) {
+        Candidate previous = candidatesByBook.remove(bookId);
+        if (previous != null) {
+            NavigableSet<Candidate> candidates = candidatesByGenre.get(previous.genre());
+            if (candidates != null) {
+                candidates.remove(previous);
+            }
+        }
+    }
+
+    /**
+     * Records a purchase, adding the book's genre to the user's profile and excluding the book
+     * from the user's future recommendations.
+     *
+     * @param userId The ID of the buying user.
+     * @param bookId The ID of the bought book.
+     */
+    public synchronized void recordPurchase(Long userId, Long bookId) {
+        UserProfile profile = profiles.computeIfAbsent(userId, id -> new UserProfile());
+        profile.ownedBookIds.add(bookId);
+        Candidate candidate = candidatesByBook.get(bookId);
+        if (candidate != null) {
+            profile.genres.add(candidate.genre());
+        }
+    }
+
+    /**
+     * Recommends books for a user: the best rated books in the genres the user bought from,
+     * minus the books the user already bought, grouped by genre and sorted by rating.
+     *
+     * @param userId        The ID of the user.
+     * @param limitPerGenre The maximum number of books taken from each genre.
+     * @return The IDs of the recommended books.
+     */
+    public List<Long> recommend(Long userId, int limitPerGenre) {
+        UserProfile profile = profiles.get(userId);
+        if (profile == null) {
+            return List.of();
+        }
+
+        List<Long> recommended = new ArrayList<>();
+        for (String genre : profile.genres) {
+            NavigableSet<Candidate> candidates = candidatesByGenre.get(genre);
+            if (candidates == null) {
+                continue;
+            }
+            int taken = 0;
+            for (Candidate candidate : candidates) {
+                if (taken == limitPerGenre) {
+                    break;
+                }
+                if (!profile.ownedBookIds.contains(candidate.bookId())) {
+                    recommended.add(candidate.bookId());
+                    taken++;
+                }
+            }
+        }
+        return recommended;
+    }
+
+    private record Candidate(long bookId, String genre, double rating) {
+    }
+
+    private static final class UserProfile {
+
+        private final Set<String> genres = ConcurrentHashMap.newKeySet();
+        private final Set<Long> ownedBookIds = ConcurrentHashMap.newKeySet();
+
+    }
+
+}
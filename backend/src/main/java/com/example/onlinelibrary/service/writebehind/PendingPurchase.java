@@ -0,0 +1,27 @@
+package com.example.onlinelibrary.service.writebehind;
+
+import com.example.onlinelibrary.repository.projection.PurchaseView;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * A purchase acknowledged to the user but not yet stored in the database.
+ *
+ * @param id          The ID allocated to the purchase.
+ * @param userId      The ID of the buyer.
+ * @param bookId      The ID of the purchased book.
+ * @param purchasedAt The purchase time in epoch milliseconds.
+ */
+record PendingPurchase(long id, long userId, long bookId, long purchasedAt) {
+
+    LocalDateTime purchaseDate() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(purchasedAt), ZoneId.systemDefault());
+    }
+
+    PurchaseView toView() {
+        return new PurchaseView(id, userId, bookId, purchaseDate(), 0);
+    }
+
+}
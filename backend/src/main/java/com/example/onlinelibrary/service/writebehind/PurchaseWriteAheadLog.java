@@ -0,0 +1,248 @@
+package com.example.onlinelibrary.service.writebehind;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of acknowledged purchases that are not yet in the database.
+ * The log is split into segment files named after the first purchase ID they hold. Records have a fixed size
+ * and carry a checksum, so that a record torn by a crash ends the recovery instead of corrupting it.
+ * Appends are made durable with a group commit: one fsync covers every record written before it,
+ * so concurrent appenders share the cost of syncing. Segments are deleted once all their purchases are stored.
+ */
+class PurchaseWriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseWriteAheadLog.class);
+
+    private static final String SUFFIX = ".wal";
+    private static final int PAYLOAD_SIZE = 4 * Long.BYTES;
+    private static final int RECORD_SIZE = Integer.BYTES + PAYLOAD_SIZE;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Object syncLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+
+    private FileChannel active;
+    private Segment activeSegment;
+    private long appended;
+    private long synced;
+
+    PurchaseWriteAheadLog(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize, RECORD_SIZE);
+    }
+
+    /**
+     * Read every intact record of the existing segments, in log order.
+     * The recovered segments are kept until {@link #release(long)} is called with their last purchase ID.
+     *
+     * @return The logged purchases.
+     * @throws IOException If the log directory cannot be read.
+     */
+    synchronized List<PendingPurchase> recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted((a, b) -> Long.compare(firstIdOf(a), firstIdOf(b)))
+                    .toList();
+        }
+
+        List<PendingPurchase> purchases = new ArrayList<>();
+        for (Path path : paths) {
+            long lastId = readSegment(path, purchases);
+            closedSegments.addLast(new Segment(path, lastId));
+        }
+        logger.info("Recovered {} purchases from {} write-ahead log segments", purchases.size(), paths.size());
+        return purchases;
+    }
+
+    /**
+     * Write a purchase at the end of the log without waiting for it to be durable.
+     * Callers must write purchases in ascending ID order and then call {@link #sync(long)} before acknowledging them.
+     *
+     * @param purchase The purchase to log.
+     * @return The sequence number to pass to {@link #sync(long)}.
+     * @throws IOException If the record cannot be written.
+     */
+    synchronized long write(PendingPurchase purchase) throws IOException {
+        if (active == null || activeSegment.size + RECORD_SIZE > segmentSize) {
+            rotate(purchase.id());
+        }
+        buffer.clear();
+        buffer.position(Integer.BYTES);
+        buffer.putLong(purchase.id()).putLong(purchase.userId()).putLong(purchase.bookId()).putLong(purchase.purchasedAt());
+        crc.reset();
+        crc.update(buffer.array(), Integer.BYTES, PAYLOAD_SIZE);
+        buffer.putInt(0, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        activeSegment.size += RECORD_SIZE;
+        activeSegment.lastId = purchase.id();
+        return ++appended;
+    }
+
+    /**
+     * Wait until the record with the given sequence number is on disk.
+     * Whoever syncs first also covers the records appended by the threads waiting behind it.
+     *
+     * @param sequence The sequence number returned by {@link #write(PendingPurchase)}.
+     * @throws IOException If the log cannot be synced.
+     */
+    void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (this) {
+                target = appended;
+                channel = active;
+            }
+            // No active segment means release dropped it once all its purchases were stored
+            if (channel != null) {
+                try {
+                    channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // The segment was rotated meanwhile, which syncs it before closing it,
+                    // or released, which only happens once its purchases are stored
+                }
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Delete the segments whose purchases are all stored in the database.
+     *
+     * @param storedId The ID up to which every logged purchase is stored.
+     */
+    synchronized void release(long storedId) {
+        while (!closedSegments.isEmpty() && closedSegments.peekFirst().lastId <= storedId) {
+            delete(closedSegments.pollFirst().path);
+        }
+        if (active != null && activeSegment.lastId <= storedId && activeSegment.size >= segmentSize / 2) {
+            // Start over rather than let a mostly stored active segment grow to its full size
+            closeActive();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active != null) {
+            try {
+                active.force(false);
+                active.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close write-ahead log segment {}", activeSegment.path, e);
+            }
+            active = null;
+        }
+    }
+
+    private void rotate(long firstId) throws IOException {
+        if (active != null) {
+            active.force(false);
+            active.close();
+            closedSegments.addLast(activeSegment);
+        }
+        Path path = directory.resolve(firstId + SUFFIX);
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        activeSegment = new Segment(path, 0);
+        logger.debug("Started write-ahead log segment {}", path);
+    }
+
+    private void closeActive() {
+        try {
+            active.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close write-ahead log segment {}", activeSegment.path, e);
+        }
+        active = null;
+        delete(activeSegment.path);
+    }
+
+    private long readSegment(Path path, List<PendingPurchase> purchases) throws IOException {
+        long lastId = 0;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && channel.read(record) >= 0) {
+                    // keep reading until the record is complete or the file ends
+                }
+                if (record.hasRemaining()) {
+                    if (record.position() > 0) {
+                        logger.warn("Ignoring torn record at the end of write-ahead log segment {}", path);
+                    }
+                    return lastId;
+                }
+                crc.reset();
+                crc.update(record.array(), Integer.BYTES, PAYLOAD_SIZE);
+                if (record.getInt(0) != (int) crc.getValue()) {
+                    logger.warn("Ignoring corrupt records from position {} of write-ahead log segment {}",
+                            channel.position() - RECORD_SIZE, path);
+                    return lastId;
+                }
+                PendingPurchase purchase = new PendingPurchase(record.getLong(4), record.getLong(12),
+                        record.getLong(20), record.getLong(28));
+                purchases.add(purchase);
+                lastId = purchase.id();
+            }
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+            logger.debug("Deleted stored write-ahead log segment {}", path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete write-ahead log segment {}", path, e);
+        }
+    }
+
+    private static long firstIdOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private long lastId;
+        private long size;
+
+        private Segment(Path path, long lastId) {
+            this.path = path;
+            this.lastId = lastId;
+        }
+
+    }
+
+}
@@ -0,0 +1,418 @@
+package com.example.onlinelibrary.service.writebehind;
+
+import com.example.onlinelibrary.config.props.PurchaseProperties;
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.BookRatingView;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Write-behind pipeline for purchases, enabled with {@code purchase.write-behind.enabled}.
+ * A purchase gets its ID from this pipeline and is acknowledged as soon as it is durable in the local
+ * {@link PurchaseWriteAheadLog}. A single background writer then inserts the pending purchases in JDBC batches,
+ * together with the purchase count increments of their books and the summaries of their users, and drops the log
+ * segments it has stored.
+ * Pending purchases stay readable through this class until their batch commits, and the log is replayed on start.
+ * A batch failing on a constraint, such as a purchase of a book or user deleted meanwhile, is split until the
+ * offending purchases are isolated; those are dead-lettered to a file next to the log instead of blocking the rest.
+ * IDs are allocated past the highest stored one, so only one application instance may write purchases.
+ */
+@Component
+@ConditionalOnProperty(prefix = "purchase.write-behind", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PurchaseWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseWriteBehind.class);
+
+    private static final String INSERT_PURCHASE = "INSERT INTO purchase "
+            + "(id, user_id, book_id, purchase_date, rating) VALUES (?, ?, ?, ?, 0)";
+    private static final String INCREMENT_PURCHASE_COUNT = "UPDATE books "
+            + "SET purchase_count = purchase_count + ? WHERE id = ?";
+    private static final String SELECT_STORED_IDS = "SELECT id FROM purchase WHERE id >= ?";
+    private static final String DEAD_LETTER_FILE = "dead-letter.csv";
+
+    private final PurchaseProperties purchaseProperties;
+    private final PurchaseRepository purchaseRepository;
+    private final BookRepository bookRepository;
+    private final UserSummaryService userSummaryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookCache bookCache;
+
+    private final ConcurrentNavigableMap<Long, PendingPurchase> pending = new ConcurrentSkipListMap<>();
+    private final NavigableSet<Long> unsynced = new ConcurrentSkipListSet<>();
+    private final Object appendLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private PurchaseWriteAheadLog writeAheadLog;
+    private ScheduledExecutorService writer;
+    private long nextId;
+
+    /**
+     * Replay the purchases left in the log by the previous run, then start the background writer.
+     * Replayed purchases are stored before the application is ready, so the indexes built on startup see them.
+     *
+     * @throws IOException If the log cannot be read.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        PurchaseProperties.WriteBehind settings = purchaseProperties.getWriteBehind();
+        writeAheadLog = new PurchaseWriteAheadLog(Path.of(settings.getLogDirectory()), settings.getSegmentSize());
+
+        List<PendingPurchase> logged = writeAheadLog.recover();
+        long lastId = purchaseRepository.findMaxId();
+        if (!logged.isEmpty()) {
+            LongSet stored = new LongOpenHashSet(
+                    jdbcTemplate.queryForList(SELECT_STORED_IDS, Long.class, logged.get(0).id()));
+            for (PendingPurchase purchase : logged) {
+                if (!stored.contains(purchase.id())) {
+                    pending.put(purchase.id(), purchase);
+                }
+                lastId = Math.max(lastId, purchase.id());
+            }
+            logger.info("Replaying {} logged purchases not yet stored", pending.size());
+        }
+        nextId = lastId + 1;
+        flush();
+
+        writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("purchase-writer-"));
+        long interval = settings.getFlushInterval();
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Purchase write-behind started, next purchase ID: {}", nextId);
+    }
+
+    /**
+     * Log a purchase and return it once it is durable; it is inserted into the database later.
+     *
+     * @param user The user making the purchase.
+     * @param book The book being purchased.
+     * @return The acknowledged {@link Purchase}, carrying its final ID.
+     */
+    public Purchase append(User user, Book book) {
+        return appendAll(user, List.of(book)).get(0);
+    }
+
+    /**
+     * Log the purchases of several books by a user and return them once they are all durable, with a single sync.
+     * The purchases get consecutive IDs and are inserted into the database later.
+     * They are handed to the background writer only once the sync succeeded, so purchases reported as failed
+     * are never stored by this run; until then their IDs hold back the release of their log segment.
+     *
+     * @param user  The user making the purchases.
+     * @param books The books being purchased.
+     * @return The acknowledged {@link Purchase} of each book, in the order of the books.
+     */
+    public List<Purchase> appendAll(User user, List<Book> books) {
+        List<Purchase> purchases = new ArrayList<>(books.size());
+        List<PendingPurchase> logged = new ArrayList<>(books.size());
+        long now = System.currentTimeMillis();
+        long sequence = 0;
+        try {
+            synchronized (appendLock) {
+                for (Book book : books) {
+                    PendingPurchase purchase = new PendingPurchase(nextId, user.getId(), book.getId(), now);
+                    unsynced.add(purchase.id());
+                    logged.add(purchase);
+                    sequence = writeAheadLog.write(purchase);
+                    nextId++;
+                    purchases.add(toPurchase(purchase, user, book));
+                }
+            }
+            writeAheadLog.sync(sequence);
+        } catch (IOException e) {
+            logged.forEach(purchase -> unsynced.remove(purchase.id()));
+            throw new IllegalStateException("Failed to log purchase", e);
+        }
+        // Published before leaving the unsynced set, so the release never passes a purchase in between
+        for (PendingPurchase purchase : logged) {
+            pending.put(purchase.id(), purchase);
+            unsynced.remove(purchase.id());
+        }
+
+        if (pending.size() >= purchaseProperties.getWriteBehind().getBatchSize()
+                && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+        return purchases;
+    }
+
+    /**
+     * Get the pending purchases of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The {@link PurchaseView} of each purchase of the user not yet stored, in ID order.
+     */
+    public List<PurchaseView> getPendingPurchases(long userId) {
+        List<PurchaseView> purchases = new ArrayList<>();
+        for (PendingPurchase purchase : pending.values()) {
+            if (purchase.userId() == userId) {
+                purchases.add(purchase.toView());
+            }
+        }
+        return purchases;
+    }
+
+    /**
+     * Get a pending purchase of a user.
+     *
+     * @param purchaseId The ID of the purchase.
+     * @param user       The user.
+     * @return The purchase if it is pending and belongs to the user.
+     */
+    public Optional<Purchase> getPendingPurchase(Long purchaseId, User user) {
+        PendingPurchase purchase = pending.get(purchaseId);
+        if (purchase == null || purchase.userId() != user.getId()) {
+            return Optional.empty();
+        }
+        return Optional.of(toPurchase(purchase, user, bookOf(purchase)));
+    }
+
+    /**
+     * Wait until a purchase is stored in the database, flushing the pending purchases if needed.
+     *
+     * @param purchaseId The ID of the purchase.
+     */
+    public void awaitStored(Long purchaseId) {
+        awaitStored(() -> pending.containsKey(purchaseId));
+    }
+
+    /**
+     * Wait until the pending purchases of a book are stored in the database, before the book is deleted.
+     *
+     * @param bookId The ID of the book.
+     */
+    public void awaitStoredOfBook(long bookId) {
+        awaitStored(() -> pending.values().stream().anyMatch(purchase -> purchase.bookId() == bookId));
+    }
+
+    /**
+     * Wait until the pending purchases of a user are stored in the database, before the user is deleted.
+     *
+     * @param userId The ID of the user.
+     */
+    public void awaitStoredOfUser(long userId) {
+        awaitStored(() -> pending.values().stream().anyMatch(purchase -> purchase.userId() == userId));
+    }
+
+    private void awaitStored(BooleanSupplier isPending) {
+        if (!isPending.getAsBoolean()) {
+            return;
+        }
+        try {
+            writer.submit(this::flush).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing purchase", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to store purchase", e.getCause());
+        }
+        if (isPending.getAsBoolean()) {
+            throw new IllegalStateException("Purchase is not stored yet, try again later.");
+        }
+    }
+
+    /**
+     * Stop the writer and store what is still pending, so that a clean shutdown leaves an empty log.
+     *
+     * @throws InterruptedException If interrupted while waiting for the writer to stop.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+        flush();
+        writeAheadLog.close();
+        logger.info("Purchase write-behind stopped with {} purchases pending", pending.size());
+    }
+
+    /**
+     * Store the pending purchases batch by batch, oldest first.
+     * A batch failing for another reason than a constraint violation stays pending and logged,
+     * and is retried on the next flush.
+     */
+    private void flush() {
+        flushRequested.set(false);
+        int batchSize = Math.max(1, purchaseProperties.getWriteBehind().getBatchSize());
+        while (!pending.isEmpty()) {
+            List<PendingPurchase> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            for (PendingPurchase purchase : pending.values()) {
+                batch.add(purchase);
+                if (batch.size() == batchSize) {
+                    break;
+                }
+            }
+
+            try {
+                storeOrSplit(batch);
+            } catch (RuntimeException e) {
+                logger.error("Failed to store {} purchases, will retry", batch.size(), e);
+                return;
+            }
+
+            long storedId;
+            synchronized (appendLock) {
+                storedId = nextId;
+                if (!pending.isEmpty()) {
+                    storedId = Math.min(storedId, pending.firstKey());
+                }
+                if (!unsynced.isEmpty()) {
+                    storedId = Math.min(storedId, unsynced.first());
+                }
+            }
+            writeAheadLog.release(storedId - 1);
+        }
+    }
+
+    /**
+     * Store a batch, halving it on a constraint violation until the purchases violating it are isolated
+     * and dead-lettered. Stored purchases leave the pending map at once, so a later failure never repeats them.
+     *
+     * @param batch The purchases to store.
+     */
+    private void storeOrSplit(List<PendingPurchase> batch) {
+        Long2IntMap counts = new Long2IntOpenHashMap();
+        for (PendingPurchase purchase : batch) {
+            counts.mergeInt(purchase.bookId(), 1, Integer::sum);
+        }
+        try {
+            store(batch, counts);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), e);
+                return;
+            }
+            int half = batch.size() / 2;
+            storeOrSplit(batch.subList(0, half));
+            storeOrSplit(batch.subList(half, batch.size()));
+            return;
+        }
+
+        for (PendingPurchase purchase : batch) {
+            pending.remove(purchase.id());
+        }
+        for (long bookId : counts.keySet()) {
+            bookCache.evictBook(bookId);
+        }
+        logger.debug("Stored {} purchases of {} books", batch.size(), counts.size());
+    }
+
+    /**
+     * Drop a purchase that can never be stored, appending it to the dead-letter file for manual review.
+     *
+     * @param purchase The purchase.
+     * @param cause    The constraint violation storing it.
+     */
+    private void deadLetter(PendingPurchase purchase, DataIntegrityViolationException cause) {
+        logger.error("Dead-lettering purchase ID {} of user ID {} for book ID {} made at {}: {}",
+                purchase.id(), purchase.userId(), purchase.bookId(), purchase.purchaseDate(),
+                cause.getMostSpecificCause().getMessage());
+        Path file = Path.of(purchaseProperties.getWriteBehind().getLogDirectory()).resolve(DEAD_LETTER_FILE);
+        String line = purchase.id() + "," + purchase.userId() + "," + purchase.bookId() + ","
+                + purchase.purchasedAt() + System.lineSeparator();
+        try {
+            Files.writeString(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Failed to write purchase ID {} to the dead-letter file {}", purchase.id(), file, e);
+        }
+        pending.remove(purchase.id());
+    }
+
+    private void store(List<PendingPurchase> batch, Long2IntMap counts) {
+        List<Long2IntMap.Entry> increments = new ArrayList<>(counts.long2IntEntrySet());
+        // Summaries are locked in ascending user ID order, so concurrent writers cannot deadlock on them
+        Map<Long, List<PendingPurchase>> purchasesByUser = new TreeMap<>();
+        for (PendingPurchase purchase : batch) {
+            purchasesByUser.computeIfAbsent(purchase.userId(), userId -> new ArrayList<>()).add(purchase);
+        }
+        purchasesByUser.keySet().forEach(userSummaryService::ensureSummary);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_PURCHASE, batch, batch.size(), (ps, purchase) -> {
+                ps.setLong(1, purchase.id());
+                ps.setLong(2, purchase.userId());
+                ps.setLong(3, purchase.bookId());
+                ps.setTimestamp(4, new Timestamp(purchase.purchasedAt()));
+            });
+            jdbcTemplate.batchUpdate(INCREMENT_PURCHASE_COUNT, increments, increments.size(), (ps, increment) -> {
+                ps.setInt(1, increment.getIntValue());
+                ps.setLong(2, increment.getLongKey());
+            });
+            recordSummaries(purchasesByUser, counts.keySet());
+        });
+    }
+
+    private void recordSummaries(Map<Long, List<PendingPurchase>> purchasesByUser, Collection<Long> bookIds) {
+        Long2ObjectMap<String> genres = new Long2ObjectOpenHashMap<>(bookIds.size());
+        for (BookRatingView book : bookRepository.findRatingViewsByIdIn(bookIds)) {
+            genres.put(book.getId().longValue(), book.getGenre());
+        }
+        purchasesByUser.forEach((userId, purchases) -> {
+            List<String> purchasedGenres = new ArrayList<>(purchases.size());
+            LocalDateTime lastPurchaseDate = null;
+            for (PendingPurchase purchase : purchases) {
+                purchasedGenres.add(genres.get(purchase.bookId()));
+                if (lastPurchaseDate == null || purchase.purchaseDate().isAfter(lastPurchaseDate)) {
+                    lastPurchaseDate = purchase.purchaseDate();
+                }
+            }
+            userSummaryService.recordPurchases(userId, purchasedGenres, lastPurchaseDate);
+        });
+    }
+
+    private static Book bookOf(PendingPurchase purchase) {
+        Book book = new Book();
+        book.setId(purchase.bookId());
+        return book;
+    }
+
+    private static Purchase toPurchase(PendingPurchase purchase, User user, Book book) {
+        return new Purchase(purchase.id(), user, book, purchase.purchaseDate(), 0);
+    }
+
+}
@@ -8,15 +8,20 @@ import com.example.onlinelibrary.web.dto.auth.JwtResponseDto;
 import com.example.onlinelibrary.web.dto.user.UserDto;
 import com.example.onlinelibrary.web.dto.validation.OnCreate;
 import com.example.onlinelibrary.web.mappers.UserMapper;
+import com.example.onlinelibrary.web.security.JwtUserDetails;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -76,4 +81,16 @@ public class AuthController {
         return authService.refresh(refreshToken);
     }
 
+    /**
+     * Handles logout, revoking every refresh and access token of the authenticated user.
+     */
+    @PostMapping("/logout")
+    @PreAuthorize("isAuthenticated()")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout() {
+        JwtUserDetails user = (JwtUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        logger.info("Received logout request for user: {}", user.getUsername());
+        authService.logout(user.getId());
+    }
+
 }
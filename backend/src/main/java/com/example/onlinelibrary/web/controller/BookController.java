@@ -1,19 +1,30 @@
 package com.example.onlinelibrary.web.controller;
 
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookCursor;
+import com.example.onlinelibrary.domain.book.BookSort;
+import com.example.onlinelibrary.repository.projection.BookView;
 import com.example.onlinelibrary.service.BookService;
 import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.book.BookSuggestionDto;
+import com.example.onlinelibrary.web.dto.page.CursorPageDto;
 import com.example.onlinelibrary.web.dto.validation.OnUpdate;
 import com.example.onlinelibrary.web.mappers.BookMapper;
+import com.example.onlinelibrary.web.stream.BookNdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -29,9 +40,13 @@ import java.util.List;
 public class BookController {
 
     private static final Logger logger = LoggerFactory.getLogger(BookController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 10;
+
     private final BookService bookService;
 
     private final BookMapper bookMapper;
+    private final BookNdjsonWriter bookNdjsonWriter;
 
 
     /**
@@ -51,17 +66,87 @@ public class BookController {
     }
 
     /**
-     * Get all books.
+     * Get all books. Requests with a cursor, sort or size parameter get a page instead.
      *
      * @return A list of {@link BookDto} representing all books.
      */
-    @GetMapping
+    @GetMapping(params = {"!cursor", "!sort", "!size"}, produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Get all books")
     public List<BookDto> getAllBooks() {
         logger.info("Received request to retrieve all books");
-        List<Book> allBooks = bookService.getAllBooks();
-        logger.info("Retrieved {} books", allBooks.size());
-        return bookMapper.toDto(allBooks);
+        List<BookView> books = bookService.getAllBooks();
+        logger.info("Retrieved {} books", books.size());
+        return bookMapper.toViewDto(books);
+    }
+
+    /**
+     * Get a page of books using keyset pagination, when a cursor, sort or size parameter is given.
+     *
+     * @param cursor The continuation cursor returned with the previous page, absent for the first page.
+     * @param sort   The order of the catalog, only used for the first page.
+     * @param size   The maximum number of books in the page.
+     * @return A {@link CursorPageDto} of {@link BookDto} with the cursor of the next page.
+     */
+    @GetMapping
+    @Operation(summary = "Get a page of books")
+    public CursorPageDto<BookDto> getBooks(@RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "ID") BookSort sort,
+                                           @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int size) {
+        logger.info("Received request to retrieve a page of {} books", size);
+        BookCursor pageCursor = cursor != null ? BookCursor.decode(cursor) : BookCursor.first(sort);
+        List<BookView> books = bookService.getBooksPage(pageCursor, size);
+        String nextCursor = null;
+        if (books.size() == size) {
+            BookView last = books.get(books.size() - 1);
+            nextCursor = BookCursor.after(pageCursor.getSort(), last.getId(), last.getRating()).encode();
+        }
+        logger.info("Retrieved {} books", books.size());
+        return new CursorPageDto<>(bookMapper.toViewDto(books), nextCursor);
+    }
+
+    /**
+     * Search books by title, author, description, publisher and ISBN.
+     *
+     * @param query The search query; its last word also matches as a prefix.
+     * @param limit The maximum number of books to return.
+     * @return A list of {@link BookDto} of the matching books, most relevant first.
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search books")
+    public List<BookDto> search(@RequestParam("q") @NotBlank String query,
+                                @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        logger.info("Received request to search books: {}", query);
+        List<Book> books = bookService.searchBooks(query, limit);
+        logger.info("Found {} books", books.size());
+        return bookMapper.toDto(books);
+    }
+
+    /**
+     * Suggest book titles and authors completing what the user has typed so far.
+     *
+     * @param prefix The typed prefix; a trailing space ends the last word.
+     * @param limit  The maximum number of suggestions to return.
+     * @return A list of {@link BookSuggestionDto}, best weighted first.
+     */
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete book titles and authors")
+    public List<BookSuggestionDto> autocomplete(@RequestParam("q") @NotBlank String prefix,
+                                                @RequestParam(defaultValue = "" + MAX_SUGGESTIONS)
+                                                @Min(1) @Max(MAX_SUGGESTIONS) int limit) {
+        logger.debug("Received request to autocomplete: {}", prefix);
+        return bookMapper.toSuggestionDto(bookService.suggestBooks(prefix, limit));
+    }
+
+    /**
+     * Stream the whole catalog as newline delimited JSON, for bulk consumers.
+     *
+     * @return A {@link StreamingResponseBody} writing one {@link BookDto} per line.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all books as NDJSON")
+    public StreamingResponseBody streamAllBooks() {
+        logger.info("Received request to stream all books");
+        return bookNdjsonWriter.write(bookService::streamAllBooks);
     }
 
     /**
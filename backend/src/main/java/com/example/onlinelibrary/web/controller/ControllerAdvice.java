@@ -4,7 +4,10 @@ import com.example.onlinelibrary.domain.exception.AccessDeniedException;
 import com.example.onlinelibrary.domain.exception.ExceptionBody;
 import com.example.onlinelibrary.domain.exception.ResourceMappingException;
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
+import com.example.onlinelibrary.domain.exception.ServiceUnavailableException;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.validation.FieldError;
@@ -95,6 +98,16 @@ public class ControllerAdvice {
         return new ExceptionBody("Authentication failed.");
     }
 
+    /**
+     * Handles the service unavailable exception, asking the client to retry after a second.
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ExceptionBody handleServiceUnavailable(ServiceUnavailableException e, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return new ExceptionBody(e.getMessage());
+    }
+
     /**
      * Handles general exceptions.
      */
@@ -4,9 +4,11 @@ import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.domain.exception.AccessDeniedException;
 import com.example.onlinelibrary.domain.purchase.Purchase;
 import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
 import com.example.onlinelibrary.service.BookService;
 import com.example.onlinelibrary.service.PurchaseService;
 import com.example.onlinelibrary.service.UserService;
+import com.example.onlinelibrary.web.dto.purchase.CartDto;
 import com.example.onlinelibrary.web.dto.purchase.PurchaseDto;
 import com.example.onlinelibrary.web.mappers.PurchaseMapper;
 import com.example.onlinelibrary.web.security.expression.CustomSecurityExpression;
@@ -20,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -63,6 +66,29 @@ public class PurchaseController {
         return purchaseMapper.toDto(purchase);
     }
 
+    /**
+     * Buy several books at once.
+     *
+     * @param cart The {@link CartDto} listing the IDs of the books to buy.
+     * @return A list of {@link PurchaseDto} representing the purchases, in the order of the cart.
+     */
+    @PostMapping("/checkout")
+    @Operation(summary = "Buy several books at once")
+    public List<PurchaseDto> checkout(@Validated @RequestBody CartDto cart) {
+        User user = getCurrentAuthenticatedUser();
+
+        // Check if the user can access every book before buying any
+        for (Long bookId : cart.getBookIds()) {
+            if (!customSecurityExpression.canAccessBook(bookId)) {
+                throw new AccessDeniedException();
+            }
+        }
+
+        List<Purchase> purchases = purchaseService.checkout(user, cart.getBookIds());
+        logger.info("User {} bought {} books", user.getEmail(), purchases.size());
+        return purchaseMapper.toDto(purchases);
+    }
+
     /**
      * Get all purchases made by the currently authenticated user.
      *
@@ -72,9 +98,9 @@ public class PurchaseController {
     @Operation(summary = "Get all purchases made by the user")
     public List<PurchaseDto> getUserPurchases() {
         User user = getCurrentAuthenticatedUser();
-        List<Purchase> purchases = purchaseService.getPurchasesByUser(user);
+        List<PurchaseView> purchases = purchaseService.getPurchasesByUser(user);
         logger.info("Retrieved {} purchases for user {}", purchases.size(), user.getEmail());
-        return purchaseMapper.toDto(purchases);
+        return purchaseMapper.toViewDto(purchases);
     }
 
     /**
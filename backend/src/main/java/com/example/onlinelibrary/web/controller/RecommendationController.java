@@ -2,17 +2,22 @@ package com.example.onlinelibrary.web.controller;
 
 import com.example.onlinelibrary.domain.book.Book;
 import com.example.onlinelibrary.service.RecommendationService;
+import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.mappers.BookMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -21,33 +26,38 @@ import java.util.List;
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/recommendations")
+@Validated
 @Tag(name = "Recommendation Controller", description = "Recommendation API")
 @Slf4j
 public class RecommendationController {
 
     private static final Logger logger = LoggerFactory.getLogger(RecommendationController.class);
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_OFFSET = 1000;
+
     private final RecommendationService recommendationService;
+    private final BookMapper bookMapper;
 
     /**
      * Get book recommendations for a user based on their preferences.
      *
      * @param userId The ID of the user for whom recommendations are generated.
-     * @return A list of recommended books for the user.
+     * @param offset The number of best recommendations to skip.
+     * @param limit  The maximum number of recommendations to return.
+     * @return A list of {@link BookDto} of the recommended books for the user, best first.
      */
     @GetMapping("/{userId}")
-    public List<Book> getRecommendations(@PathVariable Long userId) {
+    public List<BookDto> getRecommendations(@PathVariable Long userId,
+                                            @RequestParam(defaultValue = "0") @Min(0) @Max(MAX_OFFSET) int offset,
+                                            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_LIMIT) int limit) {
 
         logger.info("Received request to get recommendations for user with ID: {}", userId);
 
-        // Define a sorting comparator based on book rating in descending order
-        Comparator<Book> ratingComparator = Comparator.comparingDouble(Book::getRating)
-                .reversed();
-
-        // Get recommended books for the user with the specified comparator
-        List<Book> recommendedBooks = recommendationService.recommendBooksForUser(userId, ratingComparator);
+        // Get a page of the recommended books for the user, best first
+        List<Book> recommendedBooks = recommendationService.recommendBooksForUser(userId, offset, limit);
 
         logger.info("Recommended {} books for user with ID: {}", recommendedBooks.size(), userId);
 
-        return recommendedBooks;
+        return bookMapper.toDto(recommendedBooks);
     }
 }
@@ -1,24 +1,35 @@
 package com.example.onlinelibrary.web.controller;
 
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookCursor;
+import com.example.onlinelibrary.domain.book.BookSort;
 import com.example.onlinelibrary.domain.user.User;
 import com.example.onlinelibrary.service.BookService;
 import com.example.onlinelibrary.service.UserService;
+import com.example.onlinelibrary.service.UserSummaryService;
 import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.page.CursorPageDto;
 import com.example.onlinelibrary.web.dto.user.UserDto;
+import com.example.onlinelibrary.web.dto.user.UserSummaryDto;
 import com.example.onlinelibrary.web.dto.validation.OnCreate;
 import com.example.onlinelibrary.web.dto.validation.OnUpdate;
 import com.example.onlinelibrary.web.mappers.BookMapper;
 import com.example.onlinelibrary.web.mappers.UserMapper;
+import com.example.onlinelibrary.web.mappers.UserSummaryMapper;
+import com.example.onlinelibrary.web.stream.BookNdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -34,12 +45,16 @@ import java.util.List;
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final UserService userService;
     private final BookService bookService;
+    private final UserSummaryService userSummaryService;
 
     private final UserMapper userMapper;
     private final BookMapper bookMapper;
+    private final UserSummaryMapper userSummaryMapper;
+    private final BookNdjsonWriter bookNdjsonWriter;
 
     /**
      * Get a user by their ID.
@@ -106,18 +121,56 @@ public class UserController {
     }
 
     /**
-     * Get all books belonging to a specific user.
+     * Get a page of the books belonging to a specific user using keyset pagination, in ascending ID order.
      *
-     * @param id The ID of the user whose books will be retrieved.
-     * @return A list of {@link BookDto} representing the user's books.
+     * @param id     The ID of the user whose books will be retrieved.
+     * @param cursor The continuation cursor returned with the previous page, absent for the first page.
+     * @param size   The maximum number of books in the page.
+     * @return A {@link CursorPageDto} of {@link BookDto} with the cursor of the next page.
      */
     @GetMapping("/{id}/books")
-    @Operation(summary = "Get all User books")
+    @Operation(summary = "Get a page of User books")
     @PreAuthorize("@customSecurityExpression.canAccessUser(#id)")
-    public List<BookDto> getBooksByUserId(@PathVariable Long id) {
-        logger.info("Received request to get books for user with ID: {}", id);
-        List<Book> books = bookService.getAllByUserId(id);
-        return bookMapper.toDto(books);
+    public CursorPageDto<BookDto> getBooksByUserId(@PathVariable Long id,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int size) {
+        logger.info("Received request to get a page of {} books for user with ID: {}", size, id);
+        BookCursor pageCursor = cursor != null ? BookCursor.decode(cursor) : BookCursor.first(BookSort.ID);
+        List<Book> books = bookService.getBooksPageByUserId(id, pageCursor.getLastId(), size);
+        String nextCursor = null;
+        if (books.size() == size) {
+            Book last = books.get(books.size() - 1);
+            nextCursor = BookCursor.after(BookSort.ID, last.getId(), last.getRating()).encode();
+        }
+        return new CursorPageDto<>(bookMapper.toDto(books), nextCursor);
+    }
+
+    /**
+     * Get the library summary of a specific user, read from a single precomputed row.
+     *
+     * @param id The ID of the user whose summary will be retrieved.
+     * @return A {@link UserSummaryDto} with the counts, genres, last purchase and average rating of the user.
+     */
+    @GetMapping("/{id}/summary")
+    @Operation(summary = "Get User library summary")
+    @PreAuthorize("@customSecurityExpression.canAccessUser(#id)")
+    public UserSummaryDto getSummaryByUserId(@PathVariable Long id) {
+        logger.info("Received request to get the summary of user with ID: {}", id);
+        return userSummaryMapper.toDto(userSummaryService.getSummary(id));
+    }
+
+    /**
+     * Stream all books belonging to a specific user as newline delimited JSON.
+     *
+     * @param id The ID of the user whose books will be streamed.
+     * @return A {@link StreamingResponseBody} writing one {@link BookDto} per line.
+     */
+    @GetMapping(value = "/{id}/books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all User books as NDJSON")
+    @PreAuthorize("@customSecurityExpression.canAccessUser(#id)")
+    public StreamingResponseBody streamBooksByUserId(@PathVariable Long id) {
+        logger.info("Received request to stream books for user with ID: {}", id);
+        return bookNdjsonWriter.write(consumer -> bookService.streamBooksByUserId(id, consumer));
     }
 
 }
@@ -0,0 +1,15 @@
+package com.example.onlinelibrary.web.dto.book;
+
+import com.example.onlinelibrary.domain.book.BookSuggestionType;
+import lombok.Data;
+
+@Data
+public class BookSuggestionDto {
+
+    private String text;
+
+    private BookSuggestionType type;
+
+    private Long bookId;
+
+}
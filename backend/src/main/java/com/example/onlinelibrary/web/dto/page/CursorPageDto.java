@@ -0,0 +1,20 @@
+package com.example.onlinelibrary.web.dto.page;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Page of items with a continuation cursor")
+public class CursorPageDto<T> {
+
+    @Schema(description = "Items of the page")
+    private List<T> items;
+
+    @Schema(description = "Opaque cursor of the next page, absent on the last page")
+    private String nextCursor;
+
+}
@@ -0,0 +1,25 @@
+package com.example.onlinelibrary.web.dto.purchase;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Books to buy at once")
+public class CartDto {
+
+    /**
+     * Maximum number of books bought in one checkout.
+     */
+    public static final int MAX_BOOKS = 100;
+
+    @Schema(description = "IDs of the books, each at most once")
+    @NotEmpty(message = "Cart must not be empty.")
+    @Size(max = MAX_BOOKS, message = "Cart must contain at most " + MAX_BOOKS + " books.")
+    private List<@NotNull(message = "Book ID must be not null.") Long> bookIds;
+
+}
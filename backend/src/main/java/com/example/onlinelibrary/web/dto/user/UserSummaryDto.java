@@ -0,0 +1,38 @@
+package com.example.onlinelibrary.web.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Schema(description = "User library summary DTO")
+public class UserSummaryDto {
+
+    @Schema(description = "User id", example = "1")
+    private Long userId;
+
+    @Schema(description = "Number of books in the library of the user", example = "12")
+    private int ownedBooks;
+
+    @Schema(description = "Number of books bought by the user", example = "7")
+    private int purchasedBooks;
+
+    @Schema(description = "Number of books bought by the user in each genre")
+    private Map<String, Integer> genres;
+
+    @Schema(description = "Date of the last purchase of the user, absent if the user bought nothing")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.TIME)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime lastPurchaseDate;
+
+    @Schema(description = "Number of purchases rated by the user", example = "3")
+    private int ratingCount;
+
+    @Schema(description = "Average rating given by the user, 0 if the user rated nothing", example = "4.33")
+    private double averageRating;
+
+}
@@ -1,8 +1,12 @@
 package com.example.onlinelibrary.web.mappers;
 
 import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookSuggestion;
+import com.example.onlinelibrary.repository.projection.BookView;
 import com.example.onlinelibrary.web.dto.book.BookDto;
+import com.example.onlinelibrary.web.dto.book.BookSuggestionDto;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
@@ -28,12 +32,48 @@ public interface BookMapper {
      */
     List<BookDto> toDto(List<Book> books);
 
+    /**
+     * Converts a BookView projection to a BookDto object.
+     *
+     * @param book The BookView projection to be converted.
+     * @return The corresponding BookDto object.
+     */
+    BookDto toDto(BookView book);
+
+    /**
+     * Converts a list of BookView projections to a list of BookDto objects.
+     *
+     * @param books The list of BookView projections to be converted.
+     * @return The corresponding list of BookDto objects.
+     */
+    List<BookDto> toViewDto(List<BookView> books);
+
     /**
      * Converts a BookDto object to a Book object.
+     * The rating aggregates are maintained by purchases and never taken from a DTO.
      *
      * @param dto The BookDto object to be converted.
      * @return The corresponding Book object.
      */
+    @Mapping(target = "ratingSum", ignore = true)
+    @Mapping(target = "ratingCount", ignore = true)
+    @Mapping(target = "purchaseCount", ignore = true)
     Book toEntity(BookDto dto);
 
+    /**
+     * Converts a BookSuggestion object to a BookSuggestionDto object.
+     *
+     * @param suggestion The BookSuggestion object to be converted.
+     * @return The corresponding BookSuggestionDto object.
+     */
+    BookSuggestionDto toDto(BookSuggestion suggestion);
+
+    /**
+     * Converts a list of BookSuggestion objects to a list of BookSuggestionDto objects.
+     *
+     * @param suggestions The list of BookSuggestion objects to be converted.
+     * @return The corresponding list of BookSuggestionDto objects.
+     */
+    List<BookSuggestionDto> toSuggestionDto(List<BookSuggestion> suggestions);
+
 }
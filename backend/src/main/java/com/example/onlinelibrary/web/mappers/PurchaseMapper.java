@@ -1,6 +1,7 @@
 package com.example.onlinelibrary.web.mappers;
 
 import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.repository.projection.PurchaseView;
 import com.example.onlinelibrary.web.dto.purchase.PurchaseDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -40,4 +41,20 @@ public interface PurchaseMapper {
      * @return The corresponding list of PurchaseDto DTOs.
      */
     List<PurchaseDto> toDto(List<Purchase> purchases);
+
+    /**
+     * Convert a PurchaseView projection to a PurchaseDto DTO.
+     *
+     * @param purchase The PurchaseView projection to be converted.
+     * @return The corresponding PurchaseDto DTO.
+     */
+    PurchaseDto toDto(PurchaseView purchase);
+
+    /**
+     * Convert a list of PurchaseView projections to a list of PurchaseDto DTOs.
+     *
+     * @param purchases The list of PurchaseView projections to be converted.
+     * @return The corresponding list of PurchaseDto DTOs.
+     */
+    List<PurchaseDto> toViewDto(List<PurchaseView> purchases);
 }
\ No newline at end of file
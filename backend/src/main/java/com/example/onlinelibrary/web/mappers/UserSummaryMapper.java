@@ -0,0 +1,26 @@
+package com.example.onlinelibrary.web.mappers;
+
+import com.example.onlinelibrary.domain.user.UserSummary;
+import com.example.onlinelibrary.web.dto.user.UserSummaryDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Mapper interface for converting UserSummary entities to UserSummaryDto DTOs.
+ * Uses the MapStruct library with Spring component model.
+ */
+@Mapper(componentModel = "spring")
+public interface UserSummaryMapper {
+
+    /**
+     * Converts a UserSummary entity to a UserSummaryDto DTO, averaging the ratings given by the user.
+     *
+     * @param summary The UserSummary entity to be converted.
+     * @return The corresponding UserSummaryDto DTO.
+     */
+    @Mapping(source = "genreCounts", target = "genres")
+    @Mapping(target = "averageRating", expression = "java(summary.getRatingCount() == 0 ? 0.0 "
+            + ": (double) summary.getRatingSum() / summary.getRatingCount())")
+    UserSummaryDto toDto(UserSummary summary);
+
+}
@@ -0,0 +1,128 @@
+package com.example.onlinelibrary.web.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of authentication: the time the JWT filter spends on each request and the failed authentications.
+ * All meters are registered up front with a fixed set of tag values, so recording never allocates a meter.
+ */
+@Component
+@Slf4j
+public class AuthenticationMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationMetrics.class);
+
+    private static final String FILTER_TIMER = "security.jwt.filter";
+    private static final String FAILURE_COUNTER = "security.auth.failures";
+
+    /**
+     * Outcome of the JWT filter for a request.
+     */
+    public enum FilterOutcome {
+        /**
+         * The request carried a valid access token.
+         */
+        AUTHENTICATED,
+        /**
+         * The request carried an access token that was rejected.
+         */
+        REJECTED,
+        /**
+         * The request carried no access token.
+         */
+        ANONYMOUS
+    }
+
+    private final Map<FilterOutcome, Timer> filterTimers = new EnumMap<>(FilterOutcome.class);
+
+    private final Counter badCredentials;
+    private final Counter accountStatus;
+    private final Counter otherFailure;
+    private final Counter invalidAccessToken;
+    private final Counter invalidRefreshToken;
+
+    /**
+     * Registers the meters.
+     *
+     * @param meterRegistry The registry of the application meters.
+     */
+    public AuthenticationMetrics(MeterRegistry meterRegistry) {
+        for (FilterOutcome outcome : FilterOutcome.values()) {
+            filterTimers.put(outcome, Timer.builder(FILTER_TIMER)
+                    .description("Time spent by the JWT filter authenticating a request")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        this.badCredentials = failureCounter(meterRegistry, "bad_credentials");
+        this.accountStatus = failureCounter(meterRegistry, "account_status");
+        this.otherFailure = failureCounter(meterRegistry, "other");
+        this.invalidAccessToken = failureCounter(meterRegistry, "invalid_access_token");
+        this.invalidRefreshToken = failureCounter(meterRegistry, "invalid_refresh_token");
+    }
+
+    /**
+     * Records the time the JWT filter spent on a request.
+     *
+     * @param startNanos The {@link System#nanoTime()} at which the filter started.
+     * @param outcome    The outcome of the filter.
+     */
+    public void recordFilter(long startNanos, FilterOutcome outcome) {
+        filterTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a request rejected because of an invalid or outdated access token.
+     */
+    public void invalidAccessToken() {
+        invalidAccessToken.increment();
+    }
+
+    /**
+     * Counts a token refresh rejected because of an invalid refresh token.
+     */
+    public void invalidRefreshToken() {
+        invalidRefreshToken.increment();
+    }
+
+    /**
+     * Counts a failed login, as published by the authentication manager.
+     * Unknown usernames are reported as bad credentials by the authentication provider.
+     *
+     * @param event The failure event.
+     */
+    @EventListener
+    public void onAuthenticationFailure(AbstractAuthenticationFailureEvent event) {
+        Exception exception = event.getException();
+        logger.debug("Authentication failure: {}", exception.getClass().getSimpleName());
+        if (exception instanceof BadCredentialsException) {
+            badCredentials.increment();
+        } else if (exception instanceof AccountStatusException) {
+            accountStatus.increment();
+        } else {
+            otherFailure.increment();
+        }
+    }
+
+    private static Counter failureCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(FAILURE_COUNTER)
+                .description("Failed authentications")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+}
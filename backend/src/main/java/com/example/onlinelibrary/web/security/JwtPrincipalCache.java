@@ -0,0 +1,73 @@
+package com.example.onlinelibrary.web.security;
+
+import com.example.onlinelibrary.service.transaction.AfterCommit;
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of authenticated principals keyed by user ID.
+ * Lets the JWT filter authenticate requests without a database round-trip;
+ * entries must be invalidated whenever the user they represent changes.
+ * Its hit and miss counts are exported as the {@value #CACHE_NAME} cache, with the same tag keys as the
+ * Spring caches, since Prometheus drops the meters of a name whose tag keys differ from the first one.
+ */
+@Component
+@Slf4j
+public class JwtPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtPrincipalCache.class);
+
+    private static final String CACHE_NAME = "jwt-principals";
+
+    private final Cache<Long, JwtUserDetails> cache;
+
+    /**
+     * Creates the cache with the size and lifetime configured in {@link JwtProperties} and binds its statistics.
+     *
+     * @param jwtProperties The JWT configuration properties.
+     * @param meterRegistry The registry of the application meters.
+     */
+    public JwtPrincipalCache(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getPrincipalCacheSize())
+                .expireAfterWrite(Duration.ofMillis(jwtProperties.getPrincipalCacheTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "cache.manager", "jwt", "name", CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached principal of a user, loading it on a miss.
+     *
+     * @param userId The ID of the user.
+     * @param loader The function loading the principal when it is not cached.
+     * @return The {@link JwtUserDetails} of the user.
+     */
+    public JwtUserDetails get(Long userId, Function<Long, JwtUserDetails> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * Removes the cached principal of a user, so that the next request reloads it.
+     * Inside a transaction the principal is removed again after commit, dropping a principal
+     * that a concurrent request loaded from the rows not yet committed.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidate(Long userId) {
+        logger.debug("Invalidating cached principal of user ID: {}", userId);
+        cache.invalidate(userId);
+        AfterCommit.run(() -> cache.invalidate(userId));
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.example.onlinelibrary.web.security;
 
 import com.example.onlinelibrary.domain.exception.ResourceNotFoundException;
+import com.example.onlinelibrary.web.security.AuthenticationMetrics.FilterOutcome;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
@@ -18,6 +21,7 @@ import java.io.IOException;
 
 /**
  * Filter to validate JWT tokens and set the authentication context.
+ * The time spent on the token and rejected tokens are recorded in {@link AuthenticationMetrics}.
  */
 @AllArgsConstructor
 @Slf4j
@@ -26,6 +30,7 @@ public class JwtTokenFilter extends GenericFilterBean {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenFilter.class);
 
     private final JwtTokenProvider jwtTokenProvider;
+    private final AuthenticationMetrics authenticationMetrics;
 
     /**
      * Filters the request and response to validate the JWT token and set the authentication context.
@@ -38,6 +43,7 @@ public class JwtTokenFilter extends GenericFilterBean {
      */
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        long start = System.nanoTime();
         String bearerToken = ((HttpServletRequest) servletRequest).getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
             bearerToken = bearerToken.substring(7);
@@ -45,17 +51,27 @@ public class JwtTokenFilter extends GenericFilterBean {
 
         logger.debug("Bearer token: {}", bearerToken);
 
-        if (bearerToken != null && jwtTokenProvider.validateToken(bearerToken)) {
+        FilterOutcome outcome = FilterOutcome.ANONYMOUS;
+        if (bearerToken != null) {
+            outcome = FilterOutcome.REJECTED;
             try {
-                Authentication authentication = jwtTokenProvider.getAuthentication(bearerToken);
+                Claims claims = jwtTokenProvider.parseToken(bearerToken);
+                Authentication authentication = jwtTokenProvider.getAuthentication(claims);
                 if (authentication != null) {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    outcome = FilterOutcome.AUTHENTICATED;
                     logger.debug("User authenticated: {}", authentication.getName());
                 }
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Invalid JWT token: {}", e.getMessage());
             } catch (ResourceNotFoundException ignored) {
                 logger.debug("ResourceNotFoundException caught during authentication.");
             }
+            if (outcome == FilterOutcome.REJECTED) {
+                authenticationMetrics.invalidAccessToken();
+            }
         }
+        authenticationMetrics.recordFilter(start, outcome);
         filterChain.doFilter(servletRequest, servletResponse);
     }
 }
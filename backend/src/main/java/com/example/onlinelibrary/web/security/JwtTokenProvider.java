@@ -3,12 +3,12 @@ package com.example.onlinelibrary.web.security;
 import com.example.onlinelibrary.domain.enums.AuthorityName;
 import com.example.onlinelibrary.domain.exception.AccessDeniedException;
 import com.example.onlinelibrary.domain.user.Authority;
-import com.example.onlinelibrary.domain.user.User;
 import com.example.onlinelibrary.service.UserService;
 import com.example.onlinelibrary.web.dto.auth.JwtResponseDto;
 import com.example.onlinelibrary.web.security.props.JwtProperties;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -18,18 +18,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Provider for creating, validating, and managing JWT tokens.
+ * Refresh tokens carry the ID of their entry in the {@link RefreshTokenStore} and are rotated on every refresh.
+ * Access tokens are checked against the {@link TokenRevocationList}, so neither check needs the database.
  */
 @Service
 @RequiredArgsConstructor
@@ -38,18 +40,30 @@ public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    /**
+     * Claim holding the issue time of an access token in milliseconds, since the standard claim has seconds only.
+     */
+    private static final String ISSUED_AT_MILLIS = "iatMillis";
+
     private final JwtProperties jwtProperties;
 
-    private final UserDetailsService userDetailsService;
     private final UserService userService;
+    private final JwtPrincipalCache principalCache;
+    private final AuthenticationMetrics authenticationMetrics;
+    private final RefreshTokenStore refreshTokenStore;
+    private final TokenRevocationList revocationList;
     private Key key;
+    private JwtParser parser;
 
     /**
-     * Initializes the JwtTokenProvider by creating a cryptographic key.
+     * Initializes the JwtTokenProvider by creating a cryptographic key and the thread-safe parser verifying it.
      */
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     /**
@@ -61,10 +75,15 @@ public class JwtTokenProvider {
      * @return The access token.
      */
     public String createAccessToken(Long userId, String username, Set<Authority> roles) {
+        return createAccessToken(userId, username, resolveRoles(roles));
+    }
+
+    private String createAccessToken(Long userId, String username, List<AuthorityName> roles) {
         Claims claims = Jwts.claims().setSubject(username);
         claims.put("id", userId);
-        claims.put("roles", resolveRoles(roles));
+        claims.put("roles", roles);
         Date now = new Date();
+        claims.put(ISSUED_AT_MILLIS, now.getTime());
         Date validity = new Date(now.getTime() + jwtProperties.getAccess());
 
         logger.debug("Creating access token for user: {}", username);
@@ -94,7 +113,21 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Creates a refresh token for the specified user.
+     * Resolves the authority names from the granted authorities of a principal.
+     *
+     * @param authorities The granted authorities of the principal.
+     * @return A list of authority names.
+     */
+    private List<AuthorityName> resolveRoles(Collection<? extends GrantedAuthority> authorities) {
+        List<AuthorityName> result = new ArrayList<>(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            result.add(AuthorityName.valueOf(authority.getAuthority()));
+        }
+        return result;
+    }
+
+    /**
+     * Creates a refresh token for the specified user and registers it in the {@link RefreshTokenStore}.
      *
      * @param userId   The ID of the user.
      * @param username The username of the user.
@@ -105,11 +138,13 @@ public class JwtTokenProvider {
         claims.put("id", userId);
         Date now = new Date();
         Date validity = new Date(now.getTime() + jwtProperties.getRefresh());
+        long tokenId = refreshTokenStore.issue(userId, validity.getTime());
 
         logger.debug("Creating refresh token for user: {}", username);
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(Long.toString(tokenId))
                 .setIssuedAt(now)
                 .setExpiration(validity)
                 .signWith(key)
@@ -118,88 +153,103 @@ public class JwtTokenProvider {
 
     /**
      * Refreshes the user's access and refresh tokens.
+     * The refresh token is consumed, so it cannot be used again, and the user is served from the
+     * {@link JwtPrincipalCache}.
      *
      * @param refreshToken The refresh token.
      * @return The response DTO containing updated tokens.
-     * @throws AccessDeniedException If the provided refresh token is invalid.
+     * @throws AccessDeniedException If the provided refresh token is invalid, already used or revoked.
      */
     public JwtResponseDto refreshUserTokens(String refreshToken) {
         JwtResponseDto jwtResponseDto = new JwtResponseDto();
 
         logger.debug("Refreshing user tokens.");
 
-        if (!validateToken(refreshToken)) {
+        Long userId;
+        try {
+            Claims claims = parseToken(refreshToken);
+            userId = getId(claims);
+            if (claims.getId() == null || !refreshTokenStore.consume(Long.parseLong(claims.getId()), userId)) {
+                throw new IllegalArgumentException("Refresh token already used or revoked");
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            authenticationMetrics.invalidRefreshToken();
             throw new AccessDeniedException();
         }
-        Long userId = Long.valueOf(getId(refreshToken));
-        User user = userService.getById(userId);
+        JwtUserDetails user = principalCache.get(userId,
+                id -> JwtUserDetailsCreator.create(userService.getById(id)));
         jwtResponseDto.setId(userId);
-        jwtResponseDto.setUsername(user.getEmail());
-        jwtResponseDto.setAccessToken(createAccessToken(userId, user.getEmail(), user.getAuthorities()));
-        jwtResponseDto.setRefreshToken(createRefreshToken(userId, user.getEmail()));
+        jwtResponseDto.setUsername(user.getUsername());
+        jwtResponseDto.setAccessToken(createAccessToken(userId, user.getUsername(), resolveRoles(user.getAuthorities())));
+        jwtResponseDto.setRefreshToken(createRefreshToken(userId, user.getUsername()));
 
-        logger.debug("Tokens refreshed for user: {}", user.getEmail());
+        logger.debug("Tokens refreshed for user: {}", user.getUsername());
 
         return jwtResponseDto;
     }
 
     /**
-     * Validates the provided token's expiration date.
+     * Parses the provided token, verifying its signature and expiration date.
      *
-     * @param token The token to validate.
-     * @return True if the token is valid, false if it's expired.
+     * @param token The token to parse.
+     * @return The verified claims of the token.
+     * @throws JwtException             If the token is malformed, wrongly signed or expired.
+     * @throws IllegalArgumentException If the token is empty.
      */
-    public boolean validateToken(String token) {
-        Jws<Claims> claims = Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token);
-        return !claims.getBody().getExpiration().before(new Date());
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
-     * Retrieves the user ID from the specified token.
+     * Retrieves the user ID from the specified claims.
      *
-     * @param token The token from which to extract the user ID.
-     * @return The user ID as a string.
+     * @param claims The verified claims from which to extract the user ID.
+     * @return The user ID.
      */
-    private String getId(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("id")
-                .toString();
+    private Long getId(Claims claims) {
+        return Long.valueOf(claims.get("id").toString());
     }
 
     /**
-     * Retrieves the username from the specified token.
+     * Retrieves the issue time of an access token in milliseconds.
+     * Tokens without the millisecond claim are taken as issued at the end of their second, so a revocation
+     * made in that second still rejects them.
      *
-     * @param token The token from which to extract the username.
-     * @return The username.
+     * @param claims The verified claims of the access token.
+     * @return The issue time in epoch milliseconds.
      */
-    private String getUsername(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    private long getIssuedAtMillis(Claims claims) {
+        Object issuedAtMillis = claims.get(ISSUED_AT_MILLIS);
+        if (issuedAtMillis instanceof Number number) {
+            return number.longValue();
+        }
+        return claims.getIssuedAt().getTime() + 999;
     }
 
     /**
-     * Retrieves the user's authentication object from the provided token.
+     * Retrieves the user's authentication object from the provided access token claims.
+     * The principal is served from the {@link JwtPrincipalCache} and only loaded from the database on a miss.
      *
-     * @param token The token from which to obtain user authentication.
-     * @return The user's authentication object.
+     * @param claims The verified claims from which to obtain user authentication.
+     * @return The user's authentication object, or null if the claims are those of a refresh token, the token
+     * was revoked or the token's username no longer matches the user.
      */
-    public Authentication getAuthentication(String token) {
-        String username = getUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+    public Authentication getAuthentication(Claims claims) {
+        Long userId = getId(claims);
+        if (claims.getId() != null) {
+            logger.debug("Refresh token used as access token by user ID: {}", userId);
+            return null;
+        }
+        if (revocationList.isRevoked(userId, getIssuedAtMillis(claims))) {
+            logger.debug("Revoked access token of user ID: {}", userId);
+            return null;
+        }
+        JwtUserDetails userDetails = principalCache.get(userId,
+                id -> JwtUserDetailsCreator.create(userService.getById(id)));
+        if (!userDetails.getUsername().equals(claims.getSubject())) {
+            logger.debug("Token username no longer matches user ID: {}", userId);
+            return null;
+        }
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
@@ -0,0 +1,143 @@
+package com.example.onlinelibrary.web.security;
+
+import com.example.onlinelibrary.domain.exception.ServiceUnavailableException;
+import com.example.onlinelibrary.web.security.props.PasswordProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies and hashes passwords on a dedicated, bounded executor, so that BCrypt work is capped at a fixed number
+ * of threads whatever the number of concurrent logins, and request threads stay available to the other endpoints.
+ * When the queue of the executor is full, logins are rejected at once with a {@link ServiceUnavailableException}
+ * instead of piling up behind the running verifications.
+ */
+@Component
+@Slf4j
+public class PasswordVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerifier.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final String unknownUserHash;
+
+    /**
+     * Creates the verification executor and binds its metrics.
+     *
+     * @param passwordEncoder    The encoder of the passwords.
+     * @param passwordProperties The password configuration properties.
+     * @param meterRegistry      The registry of the application meters.
+     */
+    public PasswordVerifier(PasswordEncoder passwordEncoder, PasswordProperties passwordProperties,
+                            MeterRegistry meterRegistry) {
+        PasswordProperties.Verification settings = passwordProperties.getVerification();
+        int threads = settings.getThreads() > 0 ? settings.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.passwordEncoder = passwordEncoder;
+        this.strength = passwordProperties.getStrength();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                new CustomizableThreadFactory("password-verifier-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-verifier");
+        this.unknownUserHash = passwordEncoder.encode("unknown-user");
+        logger.info("Verifying passwords on {} threads with a queue of {}", threads, settings.getQueueCapacity());
+    }
+
+    /**
+     * Verify a password against its hash on the verification executor, waiting for the result.
+     * Without a hash, as for an unknown user, a dummy hash is verified instead and the result is false,
+     * so that unknown usernames take as long to reject as wrong passwords.
+     *
+     * @param rawPassword     The password to verify.
+     * @param encodedPassword The stored hash of the password, or null if there is none.
+     * @return True if the password matches the hash, false otherwise.
+     * @throws ServiceUnavailableException If too many verifications are already waiting.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        String hash = encodedPassword != null ? encodedPassword : unknownUserHash;
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(rawPassword, hash));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password verification rejected, {} logins waiting", executor.getQueue().size());
+            throw new ServiceUnavailableException("Too many logins in progress, please retry later.");
+        }
+        try {
+            return result.get() && encodedPassword != null;
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password verification interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password verification failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Check whether a hash was computed with another cost factor than the configured one.
+     * Hashes that are not BCrypt hashes never match and are left alone.
+     *
+     * @param encodedPassword The stored hash of the password.
+     * @return True if the password should be hashed again, false otherwise.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.matches() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Hash a password with the configured cost factor in the background, on the verification executor.
+     * When the executor is saturated the rehash is skipped, and done on a later login.
+     *
+     * @param rawPassword The verified password.
+     * @param onHashed    Callback receiving the new hash, run on the verification executor.
+     */
+    public void rehash(CharSequence rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    logger.warn("Password rehash failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Password rehash skipped, verification executor saturated");
+        }
+    }
+
+    /**
+     * Stops the verification executor.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,388 @@
+package com.example.onlinelibrary.web.security;
+
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Store of the refresh tokens in circulation, by token ID, with the user and expiry time of each.
+ * Tokens are rotated: a refresh consumes the presented token and issues a new one, so a token works once,
+ * and all tokens of a user are removed when the user logs out or changes credentials.
+ * <p>
+ * Tokens are held in parallel primitive arrays indexed by open addressing, without an object per token.
+ * Every change is appended to a log file with fixed-size, checksummed records, which is replayed on startup
+ * and rewritten with the live tokens only once it has doubled since the last rewrite. Records are written through to
+ * the operating system on every change and revocations are also forced to disk.
+ */
+@Component
+@Slf4j
+public class RefreshTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    private static final int ISSUE = 1;
+    private static final int CONSUME = 2;
+    private static final int REVOKE = 3;
+    private static final int PAYLOAD_SIZE = Integer.BYTES + 3 * Long.BYTES;
+    private static final int RECORD_SIZE = Integer.BYTES + PAYLOAD_SIZE;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long MIN_COMPACTION_RECORDS = 4096;
+    private static final int COMPACTION_BATCH = 256;
+
+    private final Path file;
+    private final TokenRevocationList revocationList;
+    private final SecureRandom random = new SecureRandom();
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long[] tokenIds = new long[MIN_CAPACITY];
+    private long[] userIds = new long[MIN_CAPACITY];
+    private long[] expiries = new long[MIN_CAPACITY];
+    private int size;
+    private FileChannel logChannel;
+    private long logRecords;
+    private long compactionThreshold;
+
+    /**
+     * Creates an empty store logging to the file configured in {@link JwtProperties}.
+     *
+     * @param jwtProperties  The JWT configuration properties.
+     * @param revocationList The revocation list of the access tokens, restored from the log as well.
+     */
+    public RefreshTokenStore(JwtProperties jwtProperties, TokenRevocationList revocationList) {
+        this.file = Paths.get(jwtProperties.getRefreshTokenFile());
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * Replays the log, then rewrites it with the unexpired tokens and revocations only.
+     *
+     * @throws IOException If the log cannot be read or written.
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (Files.exists(file)) {
+            replay();
+        }
+        compact();
+        logger.info("Refresh token store opened with {} tokens", size);
+    }
+
+    /**
+     * Issue a new refresh token ID for a user.
+     *
+     * @param userId    The ID of the user.
+     * @param expiresAt The expiry time of the token, in epoch milliseconds.
+     * @return The ID of the token, never 0.
+     */
+    public synchronized long issue(long userId, long expiresAt) {
+        long tokenId;
+        do {
+            tokenId = random.nextLong();
+        } while (tokenId == 0 || indexOf(tokenId) >= 0);
+        put(tokenId, userId, expiresAt);
+        append(ISSUE, tokenId, userId, expiresAt, false);
+        compactIfGrown();
+        return tokenId;
+    }
+
+    /**
+     * Consume a refresh token, which cannot be used again afterwards.
+     *
+     * @param tokenId The ID of the token.
+     * @param userId  The ID of the user the token was issued to.
+     * @return True if the token was issued to the user and neither used, revoked nor expired, false otherwise.
+     */
+    public synchronized boolean consume(long tokenId, long userId) {
+        int index = indexOf(tokenId);
+        if (index < 0 || userIds[index] != userId) {
+            return false;
+        }
+        boolean valid = expiries[index] > System.currentTimeMillis();
+        removeAt(index);
+        append(CONSUME, tokenId, userId, 0, false);
+        compactIfGrown();
+        return valid;
+    }
+
+    /**
+     * Revoke every refresh token of a user, and the access tokens issued to the user up to now.
+     *
+     * @param userId The ID of the user.
+     * @return The number of refresh tokens revoked.
+     */
+    public synchronized int revokeUser(long userId) {
+        long now = System.currentTimeMillis();
+        int revoked = removeUser(userId);
+        revocationList.revoke(userId, now);
+        append(REVOKE, 0, userId, now, true);
+        compactIfGrown();
+        logger.info("Revoked {} refresh tokens of user ID {}", revoked, userId);
+        return revoked;
+    }
+
+    /**
+     * Get the number of refresh tokens in the store, including expired ones not yet dropped.
+     *
+     * @return The number of tokens.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Closes the log.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (logChannel != null) {
+            try {
+                logChannel.force(false);
+                logChannel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close refresh token log {}", file, e);
+            }
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Appends a record of a change already applied in memory.
+     */
+    private void append(int type, long tokenId, long userId, long time, boolean force) {
+        try {
+            buffer.clear();
+            encode(buffer, type, tokenId, userId, time);
+            writeFully(logChannel, buffer);
+            if (force) {
+                logChannel.force(false);
+            }
+            logRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write refresh token log " + file, e);
+        }
+    }
+
+    /**
+     * Rewrites the log once it has doubled since the last rewrite.
+     * Called at the end of an operation only, since compacting rebuilds the arrays and moves every entry.
+     */
+    private void compactIfGrown() {
+        if (logRecords <= compactionThreshold) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact refresh token log " + file, e);
+        }
+    }
+
+    private void encode(ByteBuffer target, int type, long tokenId, long userId, long time) {
+        int start = target.position();
+        target.putInt(0).putInt(type).putLong(tokenId).putLong(userId).putLong(time);
+        crc.reset();
+        crc.update(target.array(), start + Integer.BYTES, PAYLOAD_SIZE);
+        target.putInt(start, (int) crc.getValue());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+        source.flip();
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+        source.clear();
+    }
+
+    private void replay() throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && channel.read(record) >= 0) {
+                    // keep reading until the record is complete or the file ends
+                }
+                if (record.hasRemaining()) {
+                    if (record.position() > 0) {
+                        logger.warn("Ignoring torn record at the end of refresh token log {}", file);
+                    }
+                    return;
+                }
+                crc.reset();
+                crc.update(record.array(), Integer.BYTES, PAYLOAD_SIZE);
+                if (record.getInt(0) != (int) crc.getValue()) {
+                    logger.warn("Ignoring corrupt records from position {} of refresh token log {}",
+                            channel.position() - RECORD_SIZE, file);
+                    return;
+                }
+                long tokenId = record.getLong(8);
+                long userId = record.getLong(16);
+                long time = record.getLong(24);
+                switch (record.getInt(4)) {
+                    case ISSUE -> put(tokenId, userId, time);
+                    case CONSUME -> {
+                        int index = indexOf(tokenId);
+                        if (index >= 0) {
+                            removeAt(index);
+                        }
+                    }
+                    case REVOKE -> {
+                        removeUser(userId);
+                        revocationList.revoke(userId, time);
+                    }
+                    default -> logger.warn("Ignoring unknown record type in refresh token log {}", file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log with the unexpired tokens and active revocations, dropping the expired tokens from memory.
+     * Revocations come first, since replaying one removes the tokens of the user issued before it.
+     */
+    private void compact() throws IOException {
+        close();
+        long now = System.currentTimeMillis();
+        long[] oldTokenIds = tokenIds;
+        long[] oldUserIds = userIds;
+        long[] oldExpiries = expiries;
+        int capacity = MIN_CAPACITY;
+        while (capacity < 2 * size) {
+            capacity <<= 1;
+        }
+        tokenIds = new long[capacity];
+        userIds = new long[capacity];
+        expiries = new long[capacity];
+        size = 0;
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path compacted = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        long written = 0;
+        ByteBuffer batch = ByteBuffer.allocate(COMPACTION_BATCH * RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Long, Long> revocation : revocationList.activeRevocations().entrySet()) {
+                if (!batch.hasRemaining()) {
+                    writeFully(channel, batch);
+                }
+                encode(batch, REVOKE, 0, revocation.getKey(), revocation.getValue());
+                written++;
+            }
+            for (int index = 0; index < oldTokenIds.length; index++) {
+                if (oldTokenIds[index] != 0 && oldExpiries[index] > now) {
+                    put(oldTokenIds[index], oldUserIds[index], oldExpiries[index]);
+                    if (!batch.hasRemaining()) {
+                        writeFully(channel, batch);
+                    }
+                    encode(batch, ISSUE, oldTokenIds[index], oldUserIds[index], oldExpiries[index]);
+                    written++;
+                }
+            }
+            writeFully(channel, batch);
+            channel.force(false);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logChannel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logRecords = written;
+        compactionThreshold = Math.max(MIN_COMPACTION_RECORDS, 2 * written);
+        logger.debug("Compacted refresh token log {} to {} records", file, written);
+    }
+
+    private int removeUser(long userId) {
+        int removed = 0;
+        int index = 0;
+        while (index < tokenIds.length) {
+            if (tokenIds[index] != 0 && userIds[index] == userId) {
+                // Removing shifts a later entry into this slot, so it is checked again
+                removeAt(index);
+                removed++;
+            } else {
+                index++;
+            }
+        }
+        return removed;
+    }
+
+    private int slot(long tokenId) {
+        return (int) (tokenId ^ (tokenId >>> 32)) & (tokenIds.length - 1);
+    }
+
+    private int indexOf(long tokenId) {
+        int mask = tokenIds.length - 1;
+        for (int index = slot(tokenId); tokenIds[index] != 0; index = (index + 1) & mask) {
+            if (tokenIds[index] == tokenId) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void put(long tokenId, long userId, long expiresAt) {
+        if (2 * (size + 1) > tokenIds.length) {
+            grow();
+        }
+        int mask = tokenIds.length - 1;
+        int index = slot(tokenId);
+        while (tokenIds[index] != 0 && tokenIds[index] != tokenId) {
+            index = (index + 1) & mask;
+        }
+        if (tokenIds[index] == 0) {
+            size++;
+        }
+        tokenIds[index] = tokenId;
+        userIds[index] = userId;
+        expiries[index] = expiresAt;
+    }
+
+    private void grow() {
+        long[] oldTokenIds = tokenIds;
+        long[] oldUserIds = userIds;
+        long[] oldExpiries = expiries;
+        tokenIds = new long[oldTokenIds.length * 2];
+        userIds = new long[oldTokenIds.length * 2];
+        expiries = new long[oldTokenIds.length * 2];
+        size = 0;
+        for (int index = 0; index < oldTokenIds.length; index++) {
+            if (oldTokenIds[index] != 0) {
+                put(oldTokenIds[index], oldUserIds[index], oldExpiries[index]);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at an index and shifts back the following entries of its probe sequence,
+     * so that lookups never need tombstones.
+     */
+    private void removeAt(int index) {
+        int mask = tokenIds.length - 1;
+        int gap = index;
+        for (int next = (gap + 1) & mask; tokenIds[next] != 0; next = (next + 1) & mask) {
+            if (((next - slot(tokenIds[next])) & mask) >= ((next - gap) & mask)) {
+                tokenIds[gap] = tokenIds[next];
+                userIds[gap] = userIds[next];
+                expiries[gap] = expiries[next];
+                gap = next;
+            }
+        }
+        tokenIds[gap] = 0;
+        size--;
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.example.onlinelibrary.web.security;
+
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Users whose access tokens were revoked, with the time before which their tokens are no longer accepted.
+ * A Bloom filter of the revoked users answers the check of nearly every request without a map lookup, so it
+ * costs a few hashes and array reads. Revocations are kept for the lifetime of an access token only, since
+ * older access tokens are expired anyway; refresh tokens are revoked in the {@link RefreshTokenStore}.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private static final int HASHES = 3;
+
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+    private final int mask;
+
+    private volatile AtomicLongArray filter;
+
+    /**
+     * Creates an empty revocation list with the filter size configured in {@link JwtProperties}.
+     *
+     * @param jwtProperties The JWT configuration properties.
+     */
+    public TokenRevocationList(JwtProperties jwtProperties) {
+        int bits = Integer.highestOneBit(Math.max(Long.SIZE, jwtProperties.getRevocationFilterBits()));
+        this.mask = bits - 1;
+        this.filter = new AtomicLongArray(bits / Long.SIZE);
+        this.retentionMillis = jwtProperties.getAccess() + TimeUnit.SECONDS.toMillis(1);
+    }
+
+    /**
+     * Revoke the tokens of a user issued up to the given time.
+     * Times are in milliseconds, so a token issued right after the revocation, in the same second, stays valid.
+     *
+     * @param userId      The ID of the user.
+     * @param epochMillis The time up to which the tokens of the user are revoked.
+     */
+    public void revoke(long userId, long epochMillis) {
+        revokedBefore.merge(userId, epochMillis, Math::max);
+        add(filter, userId);
+        logger.debug("Revoked tokens of user ID {} issued up to {}", userId, epochMillis);
+    }
+
+    /**
+     * Check whether a token was revoked.
+     *
+     * @param userId              The ID of the user of the token.
+     * @param issuedAtEpochMillis The issue time of the token, in epoch milliseconds.
+     * @return True if the token was issued before a revocation of the tokens of the user, false otherwise.
+     */
+    public boolean isRevoked(long userId, long issuedAtEpochMillis) {
+        if (!mightContain(filter, userId)) {
+            return false;
+        }
+        Long before = revokedBefore.get(userId);
+        return before != null && issuedAtEpochMillis <= before;
+    }
+
+    /**
+     * Get the revocations that still affect unexpired access tokens.
+     *
+     * @return The revocation time of each user, by user ID.
+     */
+    public Map<Long, Long> activeRevocations() {
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        Map<Long, Long> active = new ConcurrentHashMap<>(revokedBefore);
+        active.values().removeIf(before -> before < oldest);
+        return active;
+    }
+
+    /**
+     * Drops the revocations older than the lifetime of an access token and rebuilds the filter without them,
+     * so that it does not fill up over time.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.access}", initialDelayString = "${security.jwt.access}")
+    public synchronized void prune() {
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        revokedBefore.values().removeIf(before -> before < oldest);
+        AtomicLongArray rebuilt = new AtomicLongArray(filter.length());
+        revokedBefore.keySet().forEach(userId -> add(rebuilt, userId));
+        // A revocation made while rebuilding is in the map and added to the new filter once it is published
+        filter = rebuilt;
+        revokedBefore.keySet().forEach(userId -> add(rebuilt, userId));
+        logger.debug("Pruned token revocations, {} users remain", revokedBefore.size());
+    }
+
+    private void add(AtomicLongArray bits, long userId) {
+        long hash = mix(userId);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (hash >>> (i * 21)) & mask;
+            int word = bit >>> 6;
+            long flag = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & flag) == 0 && !bits.compareAndSet(word, current, current | flag)) {
+                // retry until the bit is set by this or another thread
+            }
+        }
+    }
+
+    private boolean mightContain(AtomicLongArray bits, long userId) {
+        long hash = mix(userId);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (hash >>> (i * 21)) & mask;
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long value) {
+        // Finalizer of MurmurHash3, spreading consecutive user IDs over the whole filter
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
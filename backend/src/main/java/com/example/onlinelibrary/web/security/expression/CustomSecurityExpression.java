@@ -9,6 +9,9 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Custom security expression methods for checking user's access rights.
  */
@@ -35,6 +38,7 @@ public class CustomSecurityExpression {
 
     /**
      * Checks whether the authenticated user can access the specified book.
+     * Administrators access every book by role; other users access the books associated with them.
      *
      * @param bookId The ID of the book to check access for.
      * @return True if the authenticated user can access the specified book, false otherwise.
@@ -46,10 +50,15 @@ public class CustomSecurityExpression {
         JwtUserDetails user = (JwtUserDetails) authentication.getPrincipal();
         Long userId = user.getId();
 
-        return userService.isBookAssignToUser(userId, bookId);
+        return hasAnyRole(authentication, AuthorityName.CATALOG_ACCESS)
+                || userService.isBookAssignToUser(userId, bookId);
     }
 
     private boolean hasAnyRole(Authentication authentication, AuthorityName... roles) {
+        return hasAnyRole(authentication, List.of(roles));
+    }
+
+    private boolean hasAnyRole(Authentication authentication, Collection<AuthorityName> roles) {
         for (AuthorityName role : roles) {
             SimpleGrantedAuthority authority = new SimpleGrantedAuthority(role.name());
             if (authentication.getAuthorities().contains(authority)) {
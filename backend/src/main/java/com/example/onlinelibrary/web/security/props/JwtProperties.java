@@ -27,4 +27,24 @@ public class JwtProperties {
      */
     private long refresh;
 
+    /**
+     * Maximum number of authenticated principals kept in the principal cache.
+     */
+    private long principalCacheSize;
+
+    /**
+     * Time in milliseconds a principal stays in the principal cache after being loaded.
+     */
+    private long principalCacheTtl;
+
+    /**
+     * Append-only file recording the issued, rotated and revoked refresh tokens, replayed on startup.
+     */
+    private String refreshTokenFile = "data/refresh-tokens.log";
+
+    /**
+     * Number of bits of the Bloom filter of users with revoked tokens; a power of two.
+     */
+    private int revocationFilterBits = 1 << 16;
+
 }
@@ -0,0 +1,40 @@
+package com.example.onlinelibrary.web.security.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration properties for password hashing and verification.
+ */
+@Component
+@Data
+@ConfigurationProperties(prefix = "security.password")
+public class PasswordProperties {
+
+    /**
+     * BCrypt cost factor of new password hashes; hashes of another cost are rehashed on login.
+     */
+    private int strength = 10;
+
+    /**
+     * Settings of the executor verifying passwords on login.
+     */
+    private final Verification verification = new Verification();
+
+    @Data
+    public static class Verification {
+
+        /**
+         * Number of threads verifying passwords; 0 for the number of available processors.
+         */
+        private int threads = 0;
+
+        /**
+         * Maximum number of logins waiting for a verification thread before new ones are rejected.
+         */
+        private int queueCapacity = 200;
+
+    }
+
+}
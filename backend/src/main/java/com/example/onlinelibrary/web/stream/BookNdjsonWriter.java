@@ -0,0 +1,62 @@
+package com.example.onlinelibrary.web.stream;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.web.mappers.BookMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes books as newline delimited JSON directly to the response output stream,
+ * one {@link com.example.onlinelibrary.web.dto.book.BookDto} per line.
+ */
+@Component
+public class BookNdjsonWriter {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+    private final BookMapper bookMapper;
+
+    public BookNdjsonWriter(ObjectMapper objectMapper, BookMapper bookMapper) {
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.bookMapper = bookMapper;
+    }
+
+    /**
+     * Creates a response body writing every book the source produces.
+     *
+     * @param source The source of books, invoked with the consumer writing each book.
+     * @return The {@link StreamingResponseBody} to return from a controller.
+     */
+    public StreamingResponseBody write(Consumer<Consumer<Book>> source) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                source.accept(book -> writeBook(generator, book));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    private void writeBook(JsonGenerator generator, Book book) {
+        try {
+            bookWriter.writeValue(generator, bookMapper.toDto(book));
+            generator.writeRaw(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
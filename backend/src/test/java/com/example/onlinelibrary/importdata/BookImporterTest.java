@@ -0,0 +1,103 @@
+package com.example.onlinelibrary.importdata;
+
+import com.example.onlinelibrary.importdata.api.reader.APIReader;
+import com.example.onlinelibrary.importdata.api.source.FileBookSource;
+import com.example.onlinelibrary.importdata.props.ImportProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports the bundled books file through the file source into an in-memory H2 database.
+ */
+class BookImporterTest {
+
+    private static final int FIXTURE_BOOKS = 12;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private BookImporter bookImporter;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE books (id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(255), "
+                + "author VARCHAR(255), genre VARCHAR(255), description VARCHAR(1000), isbn VARCHAR(255), "
+                + "image VARCHAR(255), published TIMESTAMP, publisher VARCHAR(255), rating DOUBLE, "
+                + "rating_sum BIGINT, rating_count INT, purchase_count INT)");
+        jdbcTemplate.execute("CREATE TABLE purchase (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT, "
+                + "book_id BIGINT REFERENCES books (id))");
+        jdbcTemplate.execute("CREATE TABLE user_books (user_id BIGINT, book_id BIGINT REFERENCES books (id))");
+
+        ImportProperties importProperties = new ImportProperties();
+        importProperties.setBatchSize(5);
+        importProperties.getApi().setSource("file");
+        importProperties.getApi().setPageSize(4);
+        importProperties.getApi().setPages(10);
+        importProperties.getApi().setParallelism(2);
+
+        FileBookSource bookSource = new FileBookSource(new DefaultResourceLoader(),
+                Jackson2ObjectMapperBuilder.json().build(), importProperties);
+        APIReader apiReader = new APIReader(bookSource, importProperties, new SimpleAsyncTaskExecutor());
+        bookImporter = new BookImporter(apiReader, new BookBulkWriter(jdbcTemplate), importProperties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void importsEveryBookOfTheFile() {
+        long imported = bookImporter.importBooks();
+
+        assertThat(imported).isEqualTo(FIXTURE_BOOKS);
+        // Pages are fetched concurrently and stored as they complete, so only the set of titles is fixed
+        List<String> titles = jdbcTemplate.queryForList("SELECT title FROM books", String.class);
+        assertThat(titles).hasSize(FIXTURE_BOOKS).doesNotHaveDuplicates()
+                .contains("The Silent Harbor", "The Last Timetable");
+        Timestamp published = jdbcTemplate.queryForObject(
+                "SELECT published FROM books WHERE title = 'The Silent Harbor'", Timestamp.class);
+        assertThat(published.toLocalDateTime()).isEqualTo(LocalDateTime.of(1998, 4, 12, 0, 0));
+        Integer unrated = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM books WHERE rating = 0 AND rating_count = 0 AND purchase_count = 0",
+                Integer.class);
+        assertThat(unrated).isEqualTo(FIXTURE_BOOKS);
+    }
+
+    @Test
+    void reimportReplacesBooksWithoutReusingTheirIds() {
+        bookImporter.importBooks();
+        Long firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM books", Long.class);
+        jdbcTemplate.update("INSERT INTO purchase (user_id, book_id) VALUES (1, ?)", firstId);
+        jdbcTemplate.update("INSERT INTO user_books (user_id, book_id) VALUES (1, ?)", firstId);
+
+        bookImporter.deleteBooks();
+        bookImporter.importBooks();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class)).isEqualTo(FIXTURE_BOOKS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM purchase", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_books", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(id) FROM books", Long.class)).isGreaterThan(firstId);
+    }
+
+}
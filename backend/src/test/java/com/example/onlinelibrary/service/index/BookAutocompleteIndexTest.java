@@ -0,0 +1,243 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.book.BookSuggestion;
+import com.example.onlinelibrary.domain.book.BookSuggestionType;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.projection.BookSuggestionView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookAutocompleteIndexTest {
+
+    private final BookAutocompleteIndex index = new BookAutocompleteIndex(null);
+
+    @Test
+    void completesTitlesWithAndWithoutTheirLeadingArticle() {
+        index.putBook(book(1L, "The Hobbit", "J. R. R. Tolkien", 4.5, 0));
+
+        assertThat(texts(index.suggest("hob", 10))).containsExactly("The Hobbit");
+        assertThat(texts(index.suggest("THE h", 10))).containsExactly("The Hobbit");
+        assertThat(texts(index.suggest("j. r", 10))).containsExactly("J. R. R. Tolkien");
+        assertThat(index.suggest("hobbits", 10)).isEmpty();
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void trailingSpaceEndsTheLastWord() {
+        index.putBook(book(1L, "Winter Orchard", "Hanna Lindqvist", 4.0, 0));
+        index.putBook(book(2L, "Winterbourne", "Leo Marchetti", 3.0, 0));
+
+        assertThat(texts(index.suggest("winter", 10))).containsExactly("Winter Orchard", "Winterbourne");
+        assertThat(texts(index.suggest("winter ", 10))).containsExactly("Winter Orchard");
+    }
+
+    @Test
+    void ordersByWeightAndFollowsRatingsAndPurchases() {
+        index.putBook(book(1L, "Salt and Iron", "Kofi Mensah", 3.0, 0));
+        index.putBook(book(2L, "Salt Marsh", "Ana Ruiz", 4.0, 0));
+        index.putBook(book(3L, "Saltwater", "Daniel Brooks", 2.0, 0));
+
+        assertThat(texts(index.suggest("salt", 10))).containsExactly("Salt Marsh", "Salt and Iron", "Saltwater");
+        assertThat(texts(index.suggest("salt", 2))).containsExactly("Salt Marsh", "Salt and Iron");
+
+        index.updateRating(3L, 5.0);
+        assertThat(texts(index.suggest("salt", 1))).containsExactly("Saltwater");
+
+        for (int purchase = 0; purchase < 20; purchase++) {
+            index.recordPurchase(1L);
+        }
+        assertThat(texts(index.suggest("salt", 1))).containsExactly("Salt and Iron");
+    }
+
+    @Test
+    void sharesASuggestionBetweenBooksUntilTheLastOneIsRemoved() {
+        index.putBook(book(1L, "Echoes", "Ana Ruiz", 2.0, 0));
+        index.putBook(book(2L, "Echoes", "Leo Marchetti", 4.0, 0));
+
+        List<BookSuggestion> suggestions = index.suggest("echo", 10);
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).getBookId()).isEqualTo(2L);
+
+        index.removeBook(2L);
+        suggestions = index.suggest("echo", 10);
+        assertThat(suggestions).hasSize(1);
+        assertThat(suggestions.get(0).getBookId()).isEqualTo(1L);
+        assertThat(texts(index.suggest("leo", 10))).isEmpty();
+
+        index.removeBook(1L);
+        assertThat(index.suggest("e", 10)).isEmpty();
+        assertThat(index.suggest("ana", 10)).isEmpty();
+    }
+
+    @Test
+    void replacingTheTitleMovesTheBook() {
+        index.putBook(book(1L, "Old Title", "Author", 1.0, 0));
+        index.putBook(book(1L, "New Title", "Author", 1.0, 0));
+
+        assertThat(index.suggest("old", 10)).isEmpty();
+        assertThat(texts(index.suggest("new", 10))).containsExactly("New Title");
+    }
+
+    @Test
+    void matchesABruteForceModelUnderRandomChanges() {
+        Random random = new Random(7);
+        Map<Long, Book> books = new HashMap<>();
+        for (int step = 0; step < 3000; step++) {
+            long id = 1 + random.nextInt(60);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                Book book = book(id, randomTitle(random), randomAuthor(random), random.nextInt(6), random.nextInt(4));
+                books.put(id, book);
+                index.putBook(book);
+            } else if (operation < 7) {
+                books.remove(id);
+                index.removeBook(id);
+            } else if (operation < 9) {
+                Book book = books.get(id);
+                double rating = random.nextInt(6);
+                if (book != null) {
+                    book.setRating(rating);
+                }
+                index.updateRating(id, rating);
+            } else {
+                Book book = books.get(id);
+                if (book != null) {
+                    book.setPurchaseCount(book.getPurchaseCount() + 1);
+                }
+                index.recordPurchase(id);
+            }
+
+            String prefix = randomPrefix(random);
+            assertThat(texts(index.suggest(prefix, BookAutocompleteIndex.MAX_SUGGESTIONS)))
+                    .as("step %d, prefix '%s'", step, prefix)
+                    .isEqualTo(expected(books, prefix));
+        }
+    }
+
+    /**
+     * Computes the suggestions of a prefix by scanning every book.
+     */
+    private static List<String> expected(Map<Long, Book> books, String prefix) {
+        Map<String, Double> weights = new HashMap<>();
+        for (Book book : books.values()) {
+            double weight = book.getRating() + Math.log1p(book.getPurchaseCount());
+            addCandidate(weights, book.getTitle(), BookSuggestionType.TITLE, prefix, weight);
+            addCandidate(weights, book.getAuthor(), BookSuggestionType.AUTHOR, prefix, weight);
+        }
+        List<String> expected = new ArrayList<>(weights.keySet());
+        expected.sort(Comparator.comparingDouble((String text) -> weights.get(text)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return expected.subList(0, Math.min(expected.size(), BookAutocompleteIndex.MAX_SUGGESTIONS));
+    }
+
+    @Test
+    void keepsChangesMadeWhileRebuilding() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        BookAutocompleteIndex rebuiltIndex = new BookAutocompleteIndex(bookRepository);
+        // The books change after the first row was read
+        when(bookRepository.streamAllSuggestionViews()).thenAnswer(invocation -> Stream.of(
+                        suggestionView(book(1L, "Removed Meanwhile", "Ana Ruiz", 4.0, 0)),
+                        suggestionView(book(2L, "Rated Meanwhile", "Kofi Mensah", 1.0, 0)),
+                        suggestionView(book(3L, "Rated Higher", "Daniel Brooks", 2.0, 0)))
+                .peek(view -> {
+                    if (view.getId() == 2L) {
+                        rebuiltIndex.removeBook(1L);
+                        rebuiltIndex.putBook(book(4L, "Created Meanwhile", "Leo Marchetti", 3.0, 0));
+                        rebuiltIndex.updateRating(2L, 5.0);
+                    }
+                }));
+
+        rebuiltIndex.rebuild();
+
+        assertThat(texts(rebuiltIndex.suggest("rated", 10))).containsExactly("Rated Meanwhile", "Rated Higher");
+        assertThat(rebuiltIndex.suggest("rem", 10)).isEmpty();
+        assertThat(texts(rebuiltIndex.suggest("cre", 10))).containsExactly("Created Meanwhile");
+        assertThat(rebuiltIndex.suggest("ana", 10)).isEmpty();
+
+        for (int purchase = 0; purchase < 100; purchase++) {
+            rebuiltIndex.recordPurchase(3L);
+        }
+        assertThat(texts(rebuiltIndex.suggest("ra", 1))).containsExactly("Rated Higher");
+    }
+
+    private static BookSuggestionView suggestionView(Book book) {
+        BookSuggestionView view = mock(BookSuggestionView.class);
+        when(view.getId()).thenReturn(book.getId());
+        when(view.getTitle()).thenReturn(book.getTitle());
+        when(view.getAuthor()).thenReturn(book.getAuthor());
+        when(view.getRating()).thenReturn(book.getRating());
+        when(view.getPurchaseCount()).thenReturn(book.getPurchaseCount());
+        return view;
+    }
+
+    private static void addCandidate(Map<String, Double> weights, String text, BookSuggestionType type,
+                                     String prefix, double weight) {
+        boolean matches = text.startsWith(prefix);
+        if (type == BookSuggestionType.TITLE) {
+            for (String article : List.of("the ", "a ", "an ")) {
+                if (text.startsWith(article) && text.length() > article.length()) {
+                    matches |= text.substring(article.length()).startsWith(prefix);
+                    break;
+                }
+            }
+        }
+        if (matches) {
+            weights.merge(text, weight, Math::max);
+        }
+    }
+
+    // Titles and authors use disjoint letters, normalized already, so every text is one suggestion
+    private static String randomTitle(Random random) {
+        String title = randomWord(random, "abc") + (random.nextBoolean() ? " " + randomWord(random, "abc") : "");
+        return random.nextInt(4) == 0 ? "the " + title : title;
+    }
+
+    private static String randomAuthor(Random random) {
+        return "x" + randomWord(random, "xy");
+    }
+
+    private static String randomWord(Random random, String letters) {
+        int length = 1 + random.nextInt(3);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+
+    private static String randomPrefix(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> randomWord(random, "abc");
+            case 1 -> randomWord(random, "abc") + " ";
+            case 2 -> "the " + randomWord(random, "abc").substring(0, 1);
+            default -> "x" + randomWord(random, "xy").substring(0, 1);
+        };
+    }
+
+    private static List<String> texts(List<BookSuggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestion::getText).toList();
+    }
+
+    private static Book book(Long id, String title, String author, double rating, int purchaseCount) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setRating(rating);
+        book.setPurchaseCount(purchaseCount);
+        return book;
+    }
+
+}
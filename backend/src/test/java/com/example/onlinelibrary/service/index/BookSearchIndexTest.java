@@ -0,0 +1,143 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.projection.BookTextView;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private final BookSearchIndex index = new BookSearchIndex(null);
+
+    @Test
+    void tokenizesIntoLowerCaseTermsAndJoinsHyphenatedCodes() {
+        assertThat(BookSearchIndex.tokenize("The Copper-Ledger, 978-3-16"))
+                .containsExactly("the", "copper", "ledger", "copperledger", "978", "3", "16", "978316");
+        assertThat(BookSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void matchesTheLastTermAsPrefixUnlessFollowedBySpace() {
+        index.putBook(book(1L, "Winter Orchard", "Hanna Lindqvist", "An orchard in the north"));
+        index.putBook(book(2L, "Winterbourne", "Leo Marchetti", "A village story"));
+
+        assertThat(index.search("winter", 10)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("winter ", 10)).containsExactly(1L);
+        assertThat(index.search("orchard win", 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatchesAndKeepsTheTopResults() {
+        index.putBook(book(1L, "A Quiet Place", "Nobody", "harbor harbor"));
+        index.putBook(book(2L, "The Silent Harbor", "Eleanor Whitfield", "A lighthouse keeper"));
+        index.putBook(book(3L, "Harbor Lights", "Eleanor Whitfield", "Harbor stories"));
+        index.putBook(book(4L, "Unrelated", "Someone", "Nothing to see"));
+
+        assertThat(index.search("harbor ", 10)).containsExactly(3L, 2L, 1L);
+        assertThat(index.search("harbor ", 2)).containsExactly(3L, 2L);
+        assertThat(index.search("harbor ", 0)).isEmpty();
+        assertThat(index.search("   ", 5)).isEmpty();
+    }
+
+    @Test
+    void breaksScoreTiesByBookId() {
+        index.putBook(book(7L, "Salt", "A", "x"));
+        index.putBook(book(3L, "Salt", "A", "x"));
+        index.putBook(book(5L, "Salt", "A", "x"));
+
+        assertThat(index.search("salt ", 2)).containsExactly(3L, 5L);
+    }
+
+    @Test
+    void replacesTheTextOfUpdatedBooksAndForgetsRemovedOnes() {
+        index.putBook(book(1L, "Old Title", "Author", "text"));
+        index.putBook(book(1L, "New Title", "Author", "text"));
+        index.putBook(book(2L, "Other", "Author", "text"));
+
+        assertThat(index.search("old ", 10)).isEmpty();
+        assertThat(index.search("new ", 10)).containsExactly(1L);
+
+        index.removeBook(1L);
+        assertThat(index.search("new ", 10)).isEmpty();
+        assertThat(index.search("author ", 10)).containsExactly(2L);
+    }
+
+    @Test
+    void keepsResultsAcrossCompactions() {
+        int books = 3000;
+        for (long id = 1; id <= books; id++) {
+            index.putBook(book(id, "Volume " + id, id % 2 == 0 ? "Even Author" : "Odd Author", "series"));
+        }
+        // Deleting most books compacts the segment, renumbering the remaining documents
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1; id <= books; id++) {
+            if (id % 10 != 0) {
+                index.removeBook(id);
+            } else {
+                expected.add(id);
+            }
+        }
+        index.putBook(book(10L, "Volume 10 revised", "Even Author", "series"));
+
+        assertThat(index.search("series ", books)).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(index.search("volume 20 ", 1)).containsExactly(20L);
+        assertThat(index.search("revised ", 10)).containsExactly(10L);
+        assertThat(index.search("odd ", 10)).isEmpty();
+    }
+
+    @Test
+    void keepsBooksPutOrRemovedWhileRebuilding() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        BookSearchIndex rebuiltIndex = new BookSearchIndex(bookRepository);
+        // The books change after the first row was read: book 1 is deleted and book 3 is created
+        when(bookRepository.streamAllTextViews()).thenAnswer(invocation -> Stream.of(
+                        textView(book(1L, "Removed Meanwhile", "Author", "text")),
+                        textView(book(2L, "Kept Title", "Author", "text")))
+                .peek(view -> {
+                    if (view.getId() == 2L) {
+                        rebuiltIndex.removeBook(1L);
+                        rebuiltIndex.putBook(book(3L, "Created Meanwhile", "Author", "text"));
+                    }
+                }));
+
+        rebuiltIndex.rebuild();
+
+        assertThat(rebuiltIndex.search("removed ", 10)).isEmpty();
+        assertThat(rebuiltIndex.search("created ", 10)).containsExactly(3L);
+        assertThat(rebuiltIndex.search("author ", 10)).containsExactlyInAnyOrder(2L, 3L);
+
+        rebuiltIndex.putBook(book(4L, "Created After", "Author", "text"));
+        assertThat(rebuiltIndex.search("created ", 10)).containsExactlyInAnyOrder(3L, 4L);
+    }
+
+    private static BookTextView textView(Book book) {
+        BookTextView view = mock(BookTextView.class);
+        when(view.getId()).thenReturn(book.getId());
+        when(view.getTitle()).thenReturn(book.getTitle());
+        when(view.getAuthor()).thenReturn(book.getAuthor());
+        when(view.getDescription()).thenReturn(book.getDescription());
+        when(view.getPublisher()).thenReturn(book.getPublisher());
+        when(view.getIsbn()).thenReturn(book.getIsbn());
+        return view;
+    }
+
+    private static Book book(Long id, String title, String author, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setDescription(description);
+        book.setPublisher("Publisher");
+        book.setIsbn("978-0-00-" + id);
+        return book;
+    }
+
+}
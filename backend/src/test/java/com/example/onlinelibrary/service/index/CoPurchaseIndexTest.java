@@ -0,0 +1,87 @@
+package com.example.onlinelibrary.service.index;
+
+import com.example.onlinelibrary.config.props.RecommendationProperties;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.repository.projection.PurchaseLinkView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoPurchaseIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private PurchaseRepository purchaseRepository;
+    private RecommendationProperties recommendationProperties;
+    private CoPurchaseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        purchaseRepository = mock(PurchaseRepository.class);
+        recommendationProperties = new RecommendationProperties();
+        recommendationProperties.getCoPurchase().setSnapshotFile(directory.resolve("co-purchase.bin").toString());
+        index = new CoPurchaseIndex(purchaseRepository, recommendationProperties);
+    }
+
+    @Test
+    void scoresBooksCoPurchasedWithTheUsersBooks() {
+        when(purchaseRepository.streamLinkViewsAfterId(anyLong())).thenAnswer(invocation -> Stream.of(
+                purchase(1L, 1L, 10L), purchase(2L, 1L, 11L), purchase(3L, 2L, 10L)));
+
+        index.load();
+
+        assertThat(index.affinities(2L).keySet()).containsExactly(11L);
+        assertThat(index.affinities(3L)).isEmpty();
+    }
+
+    @Test
+    void keepsChangesMadeWhileLoading() {
+        // A purchase is recorded and a book deleted after the last row was read
+        when(purchaseRepository.streamLinkViewsAfterId(anyLong())).thenAnswer(invocation -> Stream.of(
+                        purchase(1L, 1L, 10L), purchase(2L, 1L, 11L), purchase(3L, 2L, 10L))
+                .peek(purchase -> {
+                    if (purchase.getId() == 3L) {
+                        index.recordPurchase(4L, 1L, 12L);
+                        index.removeBook(11L);
+                    }
+                }));
+
+        index.load();
+
+        assertThat(index.affinities(2L).keySet()).containsExactly(12L);
+    }
+
+    @Test
+    void restoresTheModelFromItsSnapshot() {
+        when(purchaseRepository.streamLinkViewsAfterId(0L)).thenAnswer(invocation -> Stream.of(
+                purchase(1L, 1L, 10L), purchase(2L, 1L, 11L)));
+        index.load();
+        index.saveSnapshot();
+
+        CoPurchaseIndex restored = new CoPurchaseIndex(purchaseRepository, recommendationProperties);
+        when(purchaseRepository.findMaxId()).thenReturn(3L);
+        when(purchaseRepository.streamLinkViewsAfterId(2L)).thenAnswer(invocation -> Stream.of(
+                purchase(3L, 2L, 10L)));
+        restored.load();
+
+        assertThat(restored.affinities(2L).keySet()).containsExactly(11L);
+    }
+
+    private static PurchaseLinkView purchase(Long id, Long userId, Long bookId) {
+        PurchaseLinkView purchase = mock(PurchaseLinkView.class);
+        when(purchase.getId()).thenReturn(id);
+        when(purchase.getUserId()).thenReturn(userId);
+        when(purchase.getBookId()).thenReturn(bookId);
+        return purchase;
+    }
+
+}
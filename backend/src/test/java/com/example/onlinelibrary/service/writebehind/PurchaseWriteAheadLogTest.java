@@ -0,0 +1,121 @@
+package com.example.onlinelibrary.service.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseWriteAheadLogTest {
+
+    private static final int RECORD_SIZE = 36;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversLoggedPurchasesInOrderAcrossSegments() throws IOException {
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 2 * RECORD_SIZE)) {
+            log.recover();
+            append(log, 1, 2, 3, 4, 5);
+        }
+
+        assertThat(segments()).containsExactly("1.wal", "3.wal", "5.wal");
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 2 * RECORD_SIZE)) {
+            List<PendingPurchase> recovered = log.recover();
+            assertThat(recovered).extracting(PendingPurchase::id).containsExactly(1L, 2L, 3L, 4L, 5L);
+            assertThat(recovered.get(2)).isEqualTo(purchase(3));
+        }
+    }
+
+    @Test
+    void stopsAtATornRecordAtTheEndOfASegment() throws IOException {
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 1024)) {
+            log.recover();
+            append(log, 1, 2, 3);
+        }
+        Path segment = directory.resolve("1.wal");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(3L * RECORD_SIZE - 5);
+        }
+
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 1024)) {
+            assertThat(log.recover()).extracting(PendingPurchase::id).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void stopsAtARecordWithABadChecksum() throws IOException {
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 1024)) {
+            log.recover();
+            append(log, 1, 2, 3);
+        }
+        Path segment = directory.resolve("1.wal");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Flip a byte of the book ID of the second record
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), RECORD_SIZE + 20L);
+        }
+
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 1024)) {
+            assertThat(log.recover()).extracting(PendingPurchase::id).containsExactly(1L);
+        }
+    }
+
+    @Test
+    void releaseDeletesOnlySegmentsWhosePurchasesAreAllStored() throws IOException {
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 2 * RECORD_SIZE)) {
+            log.recover();
+            append(log, 1, 2, 3, 4, 5);
+            log.release(3);
+            assertThat(segments()).containsExactly("3.wal", "5.wal");
+            log.release(4);
+            assertThat(segments()).containsExactly("5.wal");
+        }
+
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 2 * RECORD_SIZE)) {
+            assertThat(log.recover()).extracting(PendingPurchase::id).containsExactly(5L);
+        }
+    }
+
+    @Test
+    void syncSucceedsAfterReleaseDroppedTheActiveSegment() throws IOException {
+        try (PurchaseWriteAheadLog log = new PurchaseWriteAheadLog(directory, 2 * RECORD_SIZE)) {
+            log.recover();
+            long sequence = log.write(purchase(1));
+            log.release(1);
+            assertThat(segments()).isEmpty();
+
+            log.sync(sequence);
+
+            log.sync(log.write(purchase(2)));
+            assertThat(segments()).containsExactly("2.wal");
+        }
+    }
+
+    private void append(PurchaseWriteAheadLog log, long... ids) throws IOException {
+        long sequence = 0;
+        for (long id : ids) {
+            sequence = log.write(purchase(id));
+        }
+        log.sync(sequence);
+    }
+
+    private List<String> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static PendingPurchase purchase(long id) {
+        return new PendingPurchase(id, 100 + id, 200 + id, 1_700_000_000_000L + id);
+    }
+
+}
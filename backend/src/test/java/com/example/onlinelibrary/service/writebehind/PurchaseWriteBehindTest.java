@@ -0,0 +1,109 @@
+package com.example.onlinelibrary.service.writebehind;
+
+import com.example.onlinelibrary.config.props.PurchaseProperties;
+import com.example.onlinelibrary.domain.book.Book;
+import com.example.onlinelibrary.domain.purchase.Purchase;
+import com.example.onlinelibrary.domain.user.User;
+import com.example.onlinelibrary.repository.BookRepository;
+import com.example.onlinelibrary.repository.PurchaseRepository;
+import com.example.onlinelibrary.service.UserSummaryService;
+import com.example.onlinelibrary.service.cache.BookCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stores purchases through the write-behind pipeline into an in-memory H2 database.
+ */
+class PurchaseWriteBehindTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PurchaseWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, purchase_count INT)");
+        jdbcTemplate.execute("CREATE TABLE purchase (id BIGINT PRIMARY KEY, user_id BIGINT, "
+                + "book_id BIGINT REFERENCES books (id), purchase_date TIMESTAMP, rating INT)");
+        jdbcTemplate.update("INSERT INTO books (id, purchase_count) VALUES (1, 0)");
+
+        PurchaseProperties purchaseProperties = new PurchaseProperties();
+        purchaseProperties.getWriteBehind().setLogDirectory(directory.toString());
+        purchaseProperties.getWriteBehind().setFlushInterval(60_000);
+        writeBehind = new PurchaseWriteBehind(purchaseProperties, mock(PurchaseRepository.class),
+                mock(BookRepository.class), mock(UserSummaryService.class), jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)), mock(BookCache.class));
+        writeBehind.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehind.stop();
+        database.shutdown();
+    }
+
+    @Test
+    void deadLettersAPurchaseViolatingAConstraintAndStoresTheRest() throws IOException {
+        User user = user(7L);
+        List<Purchase> purchases = writeBehind.appendAll(user, List.of(book(1L), book(99L), book(1L)));
+
+        writeBehind.awaitStored(purchases.get(2).getId());
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM purchase ORDER BY id", Long.class))
+                .containsExactly(purchases.get(0).getId(), purchases.get(2).getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT purchase_count FROM books WHERE id = 1", Integer.class))
+                .isEqualTo(2);
+        assertThat(writeBehind.getPendingPurchases(7L)).isEmpty();
+        assertThat(Files.readAllLines(directory.resolve("dead-letter.csv")))
+                .singleElement().asString().startsWith(purchases.get(1).getId() + ",7,99,");
+    }
+
+    @Test
+    void keepsStoringPurchasesAfterADeadLetteredOne() {
+        User user = user(7L);
+        writeBehind.append(user, book(99L));
+        writeBehind.awaitStoredOfUser(7L);
+
+        Purchase purchase = writeBehind.append(user, book(1L));
+        writeBehind.awaitStoredOfBook(1L);
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM purchase", Long.class)).containsExactly(purchase.getId());
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Book book(Long id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.example.onlinelibrary.web.security;
+
+import com.example.onlinelibrary.web.security.props.JwtProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTokenStoreTest {
+
+    private static final long HOUR = 3_600_000;
+    private static final int FIRST_COMPACTION_RECORDS = 4096;
+
+    @TempDir
+    Path directory;
+
+    private JwtProperties jwtProperties;
+    private TokenRevocationList revocationList;
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jwtProperties = new JwtProperties();
+        jwtProperties.setAccess(HOUR);
+        jwtProperties.setRefreshTokenFile(directory.resolve("refresh-tokens.log").toString());
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void consumesEachTokenOnceAndOnlyForItsUser() {
+        long token = store.issue(1, expiry());
+        long other = store.issue(1, expiry());
+
+        assertThat(store.consume(token, 2)).isFalse();
+        assertThat(store.consume(token, 1)).isTrue();
+        assertThat(store.consume(token, 1)).isFalse();
+        assertThat(store.consume(other, 1)).isTrue();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void rejectsAndDropsExpiredTokens() {
+        long token = store.issue(1, System.currentTimeMillis() - 1);
+
+        assertThat(store.consume(token, 1)).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void revokesTheTokensOfOneUserOnly() {
+        long first = store.issue(1, expiry());
+        long second = store.issue(1, expiry());
+        long kept = store.issue(2, expiry());
+        long before = System.currentTimeMillis();
+
+        assertThat(store.revokeUser(1)).isEqualTo(2);
+
+        assertThat(store.consume(first, 1)).isFalse();
+        assertThat(store.consume(second, 1)).isFalse();
+        assertThat(store.consume(kept, 2)).isTrue();
+        assertThat(revocationList.isRevoked(1, before)).isTrue();
+        assertThat(revocationList.isRevoked(2, before)).isFalse();
+    }
+
+    @Test
+    void acceptsAccessTokensIssuedJustAfterTheRevocation() {
+        store.revokeUser(1);
+        long after = System.currentTimeMillis() + 1;
+
+        assertThat(revocationList.isRevoked(1, after)).isFalse();
+    }
+
+    @Test
+    void replaysTokensAndRevocationsFromTheLog() throws IOException {
+        long consumed = store.issue(1, expiry());
+        long revoked = store.issue(2, expiry());
+        long live = store.issue(3, expiry());
+        store.consume(consumed, 1);
+        long before = System.currentTimeMillis();
+        store.revokeUser(2);
+        store.close();
+
+        store = open();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(revocationList.isRevoked(2, before)).isTrue();
+        assertThat(store.consume(consumed, 1)).isFalse();
+        assertThat(store.consume(revoked, 2)).isFalse();
+        assertThat(store.consume(live, 3)).isTrue();
+    }
+
+    @Test
+    void ignoresATornRecordAtTheEndOfTheLog() throws IOException {
+        long token = store.issue(1, expiry());
+        store.close();
+        try (FileChannel channel = FileChannel.open(Path.of(jwtProperties.getRefreshTokenFile()),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+
+        store = open();
+
+        assertThat(store.consume(token, 1)).isTrue();
+    }
+
+    @Test
+    void keepsATokenIssuedByTheOperationThatCompactsTheLog() throws IOException {
+        fillLogUpToCompaction(0);
+        long token = store.issue(2, expiry());
+        store.close();
+
+        store = open();
+
+        assertThat(store.consume(token, 2)).isTrue();
+    }
+
+    @Test
+    void consumesTheRightTokenInTheOperationThatCompactsTheLog() throws IOException {
+        long token = store.issue(1, expiry());
+        long kept = fillLogUpToCompaction(1);
+        assertThat(store.consume(token, 1)).isTrue();
+        assertThat(store.size()).isEqualTo(1);
+        store.close();
+
+        store = open();
+
+        assertThat(store.consume(token, 1)).isFalse();
+        assertThat(store.consume(kept, 9)).isTrue();
+    }
+
+    @Test
+    void keepsARevocationMadeByTheOperationThatCompactsTheLog() throws IOException {
+        long token = store.issue(1, expiry());
+        fillLogUpToCompaction(1);
+        long before = System.currentTimeMillis();
+        assertThat(store.revokeUser(1)).isEqualTo(1);
+        store.close();
+
+        store = open();
+
+        assertThat(store.consume(token, 1)).isFalse();
+        assertThat(revocationList.isRevoked(1, before)).isTrue();
+    }
+
+    @Test
+    void keepsEveryChangeAcrossCompactionsAndRestarts() throws IOException {
+        Random random = new Random(11);
+        Map<Long, Long> expected = new HashMap<>();
+        List<Long> issued = new ArrayList<>();
+
+        // Enough changes to compact the log several times, each operation possibly being the one that compacts it
+        for (int step = 0; step < 20_000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 5 || issued.isEmpty()) {
+                long userId = random.nextInt(50);
+                long token = store.issue(userId, expiry());
+                expected.put(token, userId);
+                issued.add(token);
+            } else if (operation < 9) {
+                long token = issued.get(random.nextInt(issued.size()));
+                Long userId = expected.remove(token);
+                assertThat(store.consume(token, userId == null ? 0 : userId)).isEqualTo(userId != null);
+            } else {
+                long userId = random.nextInt(50);
+                int revoked = store.revokeUser(userId);
+                assertThat(expected.values().removeIf(owner -> owner == userId)).isEqualTo(revoked > 0);
+            }
+            assertThat(store.size()).isEqualTo(expected.size());
+            if (step % 5000 == 4999) {
+                store.close();
+                store = open();
+                assertThat(store.size()).isEqualTo(expected.size());
+            }
+        }
+
+        for (Map.Entry<Long, Long> token : expected.entrySet()) {
+            assertThat(store.consume(token.getKey(), token.getValue())).isTrue();
+        }
+        assertThat(store.size()).isZero();
+    }
+
+    /**
+     * Writes records for tokens of user 9 until the next record written to a freshly opened, empty log compacts it.
+     *
+     * @param written The number of records written since the store was opened.
+     * @return The ID of the one filler token left unconsumed.
+     */
+    private long fillLogUpToCompaction(int written) {
+        long kept = store.issue(9, expiry());
+        int records = written + 1;
+        if ((FIRST_COMPACTION_RECORDS - records) % 2 != 0) {
+            // A revocation of a user without tokens writes a single record
+            store.revokeUser(8);
+            records++;
+        }
+        while (records < FIRST_COMPACTION_RECORDS) {
+            store.consume(store.issue(9, expiry()), 9);
+            records += 2;
+        }
+        return kept;
+    }
+
+    private RefreshTokenStore open() throws IOException {
+        revocationList = new TokenRevocationList(jwtProperties);
+        RefreshTokenStore opened = new RefreshTokenStore(jwtProperties, revocationList);
+        opened.open();
+        return opened;
+    }
+
+    private static long expiry() {
+        return System.currentTimeMillis() + HOUR;
+    }
+
+}